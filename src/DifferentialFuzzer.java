@@ -0,0 +1,569 @@
+import javax.swing.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Plays random seeded games on GameGui (without a window) and on GameState at the same time
+ * and checks after every click that buttons, operators, sum, moves left, save file and result are the same
+ * A game that plays out differently is shrunk to as small a board, as few moves and clicks and as simple
+ * buttons and operators as possible
+ * Usage: java DifferentialFuzzer [games] [threads] [first seed]
+ */
+public class DifferentialFuzzer {
+
+    /**
+     * Everything needed to play one game again: starting position, seed of new operators and clicks
+     */
+    static class Scenario {
+        int rows, cols, moves, targetValue, movesLeft;
+        int[] buttons;
+        String[] operators;
+        long operatorSeed;
+        List<int[]> clicks = new ArrayList<>();
+
+        Scenario copy() {
+            Scenario copy = new Scenario();
+            copy.rows = rows;
+            copy.cols = cols;
+            copy.moves = moves;
+            copy.targetValue = targetValue;
+            copy.movesLeft = movesLeft;
+            copy.buttons = buttons.clone();
+            copy.operators = operators.clone();
+            copy.operatorSeed = operatorSeed;
+            copy.clicks = new ArrayList<>(clicks);
+            return copy;
+        }
+
+        Settings settings() {
+            Settings settings = new Settings();
+            settings.setNumOfRows(rows);
+            settings.setNumOfCols(cols);
+            settings.setMovesLeft(moves);
+            settings.setTargetValue(targetValue);
+            return settings;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder str = new StringBuilder();
+            str.append("Settings ").append(settings().fileFriendlyString())
+                    .append(", moves left ").append(movesLeft)
+                    .append(", operator seed ").append(operatorSeed).append('\n');
+            str.append("Buttons:\n");
+            for (int i = 0; i < rows; i++) {
+                str.append("  ");
+                for (int j = 0; j < cols; j++) {
+                    str.append(buttons[i * cols + j]).append(' ');
+                }
+                str.append('\n');
+            }
+            str.append("Operators: ").append(String.join(" ", operators)).append('\n');
+            str.append("Clicks:");
+            for (int[] click : clicks) {
+                str.append(' ').append(click[0]).append(',').append(click[1]);
+            }
+            return str.toString();
+        }
+    }
+
+    /**
+     * Where the game on GameGui and GameState stopped being the same
+     */
+    static class Divergence {
+        final int click;
+        final String message;
+
+        Divergence(int click, String message) {
+            this.click = click;
+            this.message = message;
+        }
+
+        @Override
+        public String toString() {
+            return (click == -1 ? "at start" : "after click " + (click + 1)) + ": " + message;
+        }
+    }
+
+    /**
+     * GameGui that takes new operators from a seeded Random and remembers the first post-game text
+     */
+    private static class ReferenceGame extends GameGui {
+        private final Random random;
+        private String result;
+
+        ReferenceGame(File saveFile, long operatorSeed) {
+            super(new Settings(), saveFile);
+            random = new Random(operatorSeed);
+        }
+
+        @Override
+        public String getRandOperator() {
+            return switch (random.nextInt(4)) {
+                case 0 -> "+";
+                case 1 -> "-";
+                case 2 -> "*";
+                default -> "/";
+            };
+        }
+
+        @Override
+        public void postGame(String labelText) {
+            if (result == null) {
+                result = labelText;
+            }
+            super.postGame(labelText);
+        }
+
+        /**
+         * Presses and releases the button like a mouse click, disabled buttons ignore it
+         */
+        void click(int row, int col) {
+            ButtonModel model = getButton(row, col).getModel();
+            model.setArmed(true);
+            model.setPressed(true);
+            model.setPressed(false);
+            model.setArmed(false);
+        }
+    }
+
+    /**
+     * Makes a random game, the clicks are mostly on enabled buttons so the game gets far
+     * Sometimes the game starts like a loaded one: fewer moves left and only the operators that were saved
+     * @param seed seed of the game
+     * @return game to play
+     */
+    static Scenario generate(long seed) {
+        Random random = new Random(seed);
+        Scenario scenario = new Scenario();
+        scenario.rows = 2 + random.nextInt(9);
+        scenario.cols = 2 + random.nextInt(9);
+        scenario.moves = 1 + random.nextInt(99);
+        boolean loaded = random.nextInt(3) == 0;
+        scenario.movesLeft = loaded ? 1 + random.nextInt(scenario.moves) : scenario.moves;
+
+        scenario.buttons = new int[scenario.rows * scenario.cols];
+        int sum = 0;
+        for (int i = 0; i < scenario.buttons.length; i++) {
+            scenario.buttons[i] = random.nextInt(loaded ? 10 : 9);
+            sum += scenario.buttons[i];
+        }
+        // half of the games have a target close to the sum, so they can be won
+        scenario.targetValue = random.nextBoolean() ? Math.max(1, sum + random.nextInt(21) - 10) : 1 + random.nextInt(420);
+
+        int numOfOperators = loaded ? Math.min(scenario.rows, scenario.movesLeft) : scenario.rows;
+        scenario.operators = new String[numOfOperators];
+        for (int i = 0; i < numOfOperators; i++) {
+            scenario.operators[i] = "+-*/".charAt(random.nextInt(4)) + "";
+        }
+        scenario.operatorSeed = random.nextLong();
+
+        GameState state = engine(scenario);
+        while (!state.isOver() && scenario.clicks.size() < 2 * scenario.movesLeft + 10) {
+            if (random.nextInt(10) == 0) { // also click disabled buttons now and then
+                int[] click = {random.nextInt(scenario.rows), random.nextInt(scenario.cols)};
+                state.click(click[0], click[1]);
+                scenario.clicks.add(click);
+            } else {
+                scenario.clicks.add(state.clickRandom(random));
+            }
+        }
+        return scenario;
+    }
+
+    private static GameState engine(Scenario scenario) {
+        return new GameState(scenario.settings(), scenario.movesLeft, scenario.buttons, scenario.operators,
+                new Random(scenario.operatorSeed));
+    }
+
+    /**
+     * Plays the game on both and compares them after every click
+     * An exception on either side is a difference too, so it is shrunk like any other
+     * @param scenario game to play
+     * @param saveFile file for GameGui.save()
+     * @return where they differ or null if they played the same
+     */
+    static Divergence check(Scenario scenario, File saveFile) {
+        ReferenceGame gui = new ReferenceGame(saveFile, scenario.operatorSeed);
+        String[] buttons = new String[scenario.buttons.length];
+        for (int i = 0; i < buttons.length; i++) {
+            buttons[i] = scenario.buttons[i] + "";
+        }
+        String[] settings = scenario.settings().fileFriendlyString().split("\\|");
+        try {
+            gui.init(settings, scenario.movesLeft, buttons, scenario.operators.clone());
+        } catch (RuntimeException e) {
+            return new Divergence(-1, "GameGui threw " + e);
+        }
+        GameState engine;
+        try {
+            engine = engine(scenario);
+        } catch (RuntimeException e) {
+            return new Divergence(-1, "GameState threw " + e);
+        }
+
+        String difference = compareOrThrown(scenario, gui, engine);
+        if (difference != null) {
+            return new Divergence(-1, difference);
+        }
+        for (int k = 0; k < scenario.clicks.size(); k++) {
+            int[] click = scenario.clicks.get(k);
+            try {
+                gui.click(click[0], click[1]);
+            } catch (RuntimeException e) {
+                return new Divergence(k, "GameGui threw " + e);
+            }
+            try {
+                engine.click(click[0], click[1]);
+            } catch (RuntimeException e) {
+                return new Divergence(k, "GameState threw " + e);
+            }
+            difference = compareOrThrown(scenario, gui, engine);
+            if (difference != null) {
+                return new Divergence(k, difference);
+            }
+            if (engine.isOver()) {
+                break;
+            }
+        }
+
+        try {
+            gui.save();
+        } catch (RuntimeException e) {
+            return new Divergence(scenario.clicks.size() - 1, "GameGui.save() threw " + e);
+        }
+        try {
+            String expected = "Settings\n" + scenario.settings().fileFriendlyString() + "\n"
+                    + "Moves left\n" + engine.getMovesLeft() + "\n"
+                    + "Buttons\n" + engine.fileFriendlyButtons() + "\n"
+                    + "Next operators\n" + engine.fileFriendlyOperators();
+            String saved = Files.readString(saveFile.toPath()).replace(System.lineSeparator(), "\n");
+            if (!saved.equals(expected)) {
+                return new Divergence(scenario.clicks.size() - 1, "save file\n" + saved + "\nexpected\n" + expected);
+            }
+        } catch (IOException e) {
+            return new Divergence(scenario.clicks.size() - 1, "save file can't be read: " + e);
+        } catch (RuntimeException e) {
+            return new Divergence(scenario.clicks.size() - 1, "GameState threw " + e);
+        }
+        if (!gui.readFromFilePossible()) {
+            return new Divergence(scenario.clicks.size() - 1, "saved file can't be loaded");
+        }
+        return null;
+    }
+
+    /**
+     * Same as compare() but an exception from one of the getters is a difference as well
+     */
+    private static String compareOrThrown(Scenario scenario, ReferenceGame gui, GameState engine) {
+        try {
+            return compare(scenario, gui, engine);
+        } catch (RuntimeException e) {
+            return "comparing threw " + e;
+        }
+    }
+
+    /**
+     * @return description of the first difference or null
+     */
+    private static String compare(Scenario scenario, ReferenceGame gui, GameState engine) {
+        for (int i = 0; i < scenario.rows; i++) {
+            for (int j = 0; j < scenario.cols; j++) {
+                GridButton button = gui.getButton(i, j);
+                if (button.getValue() != engine.getValue(i, j) || !button.getText().equals(engine.getValue(i, j) + "")) {
+                    return "button " + i + "," + j + " is " + button.getText() + " instead of " + engine.getValue(i, j);
+                }
+                if (button.isEnabled() != engine.isEnabled(i, j)) {
+                    return "button " + i + "," + j + (button.isEnabled() ? " is enabled" : " is disabled");
+                }
+            }
+        }
+        for (int i = 0; i < scenario.rows; i++) {
+            if (!gui.getOperator(i).equals(engine.getOperator(i))) {
+                return "operator " + i + " is '" + gui.getOperator(i) + "' instead of '" + engine.getOperator(i) + "'";
+            }
+        }
+        if (gui.getMovesLeft() != engine.getMovesLeft()) {
+            return "moves left " + gui.getMovesLeft() + " instead of " + engine.getMovesLeft();
+        }
+        int sum = gui.updateCurrentSum(scenario.rows, scenario.cols);
+        if (sum != engine.getSum()) {
+            return "sum " + sum + " instead of " + engine.getSum();
+        }
+        if (!gui.fileFriendlyButtons().equals(engine.fileFriendlyButtons())) {
+            return "saved buttons " + gui.fileFriendlyButtons() + " instead of " + engine.fileFriendlyButtons();
+        }
+        if (!gui.fileFriendlyOperators().equals(engine.fileFriendlyOperators())) {
+            return "saved operators " + gui.fileFriendlyOperators() + " instead of " + engine.fileFriendlyOperators();
+        }
+        if (gui.result == null ? engine.getResult() != null : !gui.result.equals(engine.getResult())) {
+            return "result '" + gui.result + "' instead of '" + engine.getResult() + "'";
+        }
+        return null;
+    }
+
+    /**
+     * Makes a failing game smaller while it keeps failing, tries the biggest steps first:
+     * drops the first or last row or column, starts the game after its first clicks, lowers moves, drops or simplifies operators, lowers target value,
+     * drops single clicks and sets buttons to 0; clicks after the difference are dropped right away
+     * @param scenario failing game
+     * @param saveFile file for GameGui.save()
+     * @return smallest failing game found
+     */
+    static Scenario shrink(Scenario scenario, File saveFile) {
+        Scenario best = untilDivergence(scenario, check(scenario, saveFile));
+        boolean smaller = true;
+        while (smaller) {
+            smaller = false;
+            for (Scenario candidate : candidates(best)) {
+                Divergence divergence = check(candidate, saveFile);
+                if (divergence != null) {
+                    best = untilDivergence(candidate, divergence);
+                    smaller = true;
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return copy of the game without the clicks after the difference
+     */
+    private static Scenario untilDivergence(Scenario scenario, Divergence divergence) {
+        Scenario copy = scenario.copy();
+        copy.clicks = new ArrayList<>(copy.clicks.subList(0, divergence.click + 1));
+        return copy;
+    }
+
+    /**
+     * @return games one step smaller than the given one, biggest steps first
+     */
+    private static List<Scenario> candidates(Scenario scenario) {
+        List<Scenario> candidates = new ArrayList<>();
+        if (scenario.rows > 2) { // clicks on the dropped row are dropped or moved to the next row
+            for (int row : new int[]{scenario.rows - 1, 0}) {
+                candidates.add(withoutRow(scenario, row, false));
+                candidates.add(withoutRow(scenario, row, true));
+            }
+        }
+        if (scenario.cols > 2) {
+            for (int col : new int[]{scenario.cols - 1, 0}) {
+                candidates.add(withoutCol(scenario, col, false));
+                candidates.add(withoutCol(scenario, col, true));
+            }
+        }
+        for (int k = scenario.clicks.size() - 1; k > 1; k--) { // the selected button is clicked again, so at least 2
+            Scenario candidate = afterClicks(scenario, k);
+            if (candidate != null) {
+                candidates.add(candidate);
+            }
+        }
+        if (scenario.movesLeft > 1) {
+            Scenario candidate = scenario.copy();
+            candidate.movesLeft = 1;
+            candidates.add(candidate);
+            candidate = scenario.copy();
+            candidate.movesLeft--;
+            candidates.add(candidate);
+        }
+        if (scenario.moves > scenario.movesLeft) {
+            Scenario candidate = scenario.copy();
+            candidate.moves = scenario.movesLeft;
+            candidates.add(candidate);
+            candidate = scenario.copy();
+            candidate.moves--;
+            candidates.add(candidate);
+        }
+        if (scenario.operators.length > 1) { // missing operators come from the seed, keep the first one known
+            Scenario candidate = scenario.copy();
+            candidate.operators = Arrays.copyOf(scenario.operators, 1);
+            candidates.add(candidate);
+            for (int i = scenario.operators.length - 1; i >= 0; i--) { // later operators move up
+                candidate = scenario.copy();
+                candidate.operators = new String[scenario.operators.length - 1];
+                System.arraycopy(scenario.operators, 0, candidate.operators, 0, i);
+                System.arraycopy(scenario.operators, i + 1, candidate.operators, i, candidate.operators.length - i);
+                candidates.add(candidate);
+            }
+        }
+        for (int i = 0; i < scenario.operators.length; i++) {
+            if (!scenario.operators[i].equals("+")) {
+                Scenario candidate = scenario.copy();
+                candidate.operators[i] = "+";
+                candidates.add(candidate);
+            }
+        }
+        if (scenario.targetValue > 1) {
+            for (int targetValue : new int[]{1, scenario.targetValue / 2, scenario.targetValue - 1}) {
+                Scenario candidate = scenario.copy();
+                candidate.targetValue = Math.max(1, targetValue);
+                candidates.add(candidate);
+            }
+        }
+        for (int k = scenario.clicks.size() - 1; k >= 0; k--) {
+            Scenario candidate = scenario.copy();
+            candidate.clicks.remove(k);
+            candidates.add(candidate);
+        }
+        for (int i = 0; i < scenario.buttons.length; i++) {
+            if (scenario.buttons[i] != 0) {
+                Scenario candidate = scenario.copy();
+                candidate.buttons[i] = 0;
+                candidates.add(candidate);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Plays the first clicks on GameState and makes a game that starts where they ended,
+     * the selected button is clicked first so the same buttons are enabled
+     * @param clicks number of clicks to play
+     * @return game with fewer clicks or null if the game is over after them
+     */
+    private static Scenario afterClicks(Scenario scenario, int clicks) {
+        GameState state = engine(scenario);
+        for (int k = 0; k < clicks; k++) {
+            state.click(scenario.clicks.get(k)[0], scenario.clicks.get(k)[1]);
+        }
+        if (state.isOver()) {
+            return null;
+        }
+        Scenario candidate = scenario.copy();
+        candidate.movesLeft = state.getMovesLeft();
+        for (int i = 0; i < scenario.rows; i++) {
+            for (int j = 0; j < scenario.cols; j++) {
+                candidate.buttons[i * scenario.cols + j] = state.getValue(i, j);
+            }
+        }
+        candidate.operators = new String[Math.min(scenario.rows, state.getMovesLeft())];
+        for (int i = 0; i < candidate.operators.length; i++) {
+            candidate.operators[i] = state.getOperator(i);
+        }
+        candidate.clicks = new ArrayList<>(scenario.clicks.subList(clicks, scenario.clicks.size()));
+        if (state.getSelectedRow() != -1) {
+            candidate.clicks.add(0, new int[]{state.getSelectedRow(), state.getSelectedCol()});
+        }
+        return candidate;
+    }
+
+    /**
+     * @param moveClicks true to move clicks on the dropped row to the next row, false to drop them
+     * @return copy of the game without one row of buttons
+     */
+    private static Scenario withoutRow(Scenario scenario, int row, boolean moveClicks) {
+        Scenario candidate = scenario.copy();
+        candidate.rows--;
+        candidate.buttons = new int[candidate.rows * candidate.cols];
+        System.arraycopy(scenario.buttons, 0, candidate.buttons, 0, row * scenario.cols);
+        System.arraycopy(scenario.buttons, (row + 1) * scenario.cols, candidate.buttons, row * scenario.cols,
+                (candidate.rows - row) * scenario.cols);
+        candidate.operators = Arrays.copyOf(scenario.operators, Math.min(scenario.operators.length, candidate.rows));
+        candidate.clicks.clear();
+        for (int[] click : scenario.clicks) {
+            if (click[0] != row) {
+                candidate.clicks.add(new int[]{click[0] > row ? click[0] - 1 : click[0], click[1]});
+            } else if (moveClicks) {
+                candidate.clicks.add(new int[]{Math.min(row, candidate.rows - 1), click[1]});
+            }
+        }
+        return candidate;
+    }
+
+    /**
+     * @param moveClicks true to move clicks on the dropped column to the next column, false to drop them
+     * @return copy of the game without one column of buttons
+     */
+    private static Scenario withoutCol(Scenario scenario, int col, boolean moveClicks) {
+        Scenario candidate = scenario.copy();
+        candidate.cols--;
+        candidate.buttons = new int[candidate.rows * candidate.cols];
+        for (int i = 0; i < candidate.rows; i++) {
+            for (int j = 0; j < candidate.cols; j++) {
+                candidate.buttons[i * candidate.cols + j] = scenario.buttons[i * scenario.cols + (j < col ? j : j + 1)];
+            }
+        }
+        candidate.clicks.clear();
+        for (int[] click : scenario.clicks) {
+            if (click[1] != col) {
+                candidate.clicks.add(new int[]{click[0], click[1] > col ? click[1] - 1 : click[1]});
+            } else if (moveClicks) {
+                candidate.clicks.add(new int[]{click[0], Math.min(col, candidate.cols - 1)});
+            }
+        }
+        return candidate;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 10000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long firstSeed = args.length > 2 ? Long.parseLong(args[2]) : 0;
+
+        AtomicLong nextSeed = new AtomicLong(firstSeed);
+        AtomicLong checked = new AtomicLong(), clicks = new AtomicLong();
+        AtomicReference<Scenario> failed = new AtomicReference<>();
+        List<File> saveFiles = new ArrayList<>();
+        List<Future<?>> results = new ArrayList<>();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            File saveFile = File.createTempFile("saveData", ".txt");
+            saveFile.deleteOnExit();
+            saveFiles.add(saveFile);
+            results.add(workers.submit(() -> {
+                long seed;
+                while (failed.get() == null && (seed = nextSeed.getAndIncrement()) < firstSeed + games) {
+                    Scenario scenario = generate(seed);
+                    Divergence divergence = check(scenario, saveFile);
+                    if (divergence != null) {
+                        failed.compareAndSet(null, scenario);
+                        System.out.println("Seed " + seed + " differs " + divergence);
+                    }
+                    checked.incrementAndGet();
+                    clicks.addAndGet(scenario.clicks.size());
+                }
+            }));
+        }
+        workers.shutdown();
+        boolean crashed = false;
+        for (Future<?> result : results) {
+            try {
+                result.get();
+            } catch (ExecutionException e) { // generating a game failed, the seed is lost with it
+                crashed = true;
+                System.out.println("Worker stopped: " + e.getCause());
+                e.getCause().printStackTrace();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d games (%d clicks) checked in %.2f s, %.0f games/s%n",
+                checked.get(), clicks.get(), seconds, checked.get() / seconds);
+
+        if (failed.get() != null) {
+            Scenario smallest = shrink(failed.get(), saveFiles.get(0));
+            System.out.println("Smallest game that differs " + check(smallest, saveFiles.get(0)));
+            System.out.println(smallest);
+            System.exit(1);
+        }
+        if (crashed || checked.get() < games) {
+            System.out.println("Only " + checked.get() + " of " + games + " games were checked");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,698 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Estimates the chance that random moves win a game, without playing them
+ * Every move changes one digit, so the whole grid is described by how often each digit 0-9 appears
+ * and each operator by a 10x10 table of which digit turns into which
+ * The game is won as soon as the sum hits target value, not only after the last move
+ * estimate() is fast enough to rate many boards, distribution() carries every possible sum and is slower
+ */
+public class DifficultyEstimator {
+    private static final double GRID_STEP = 0.5;
+    private static final int GRID_POINTS = 20; // mean digit values 0..9.5
+    private static final double MIN_CHANCE = 1e-9; // sums less likely than this end where they are
+    private static final double REFRESH = 0.05; // change of the digit frequencies that makes the grid be worked out again
+
+    /**
+     * Result of a fast estimate
+     */
+    public static class Estimate {
+        private final double mean, standardDeviation, winChance;
+
+        Estimate(double mean, double standardDeviation, double winChance) {
+            this.mean = mean;
+            this.standardDeviation = standardDeviation;
+            this.winChance = winChance;
+        }
+
+        /**
+         * @return expected sum after the last move of games that never hit target value
+         */
+        public double getMean() {
+            return mean;
+        }
+
+        public double getStandardDeviation() {
+            return standardDeviation;
+        }
+
+        /**
+         * @return chance that random moves win the game
+         */
+        public double getWinChance() {
+            return winChance;
+        }
+
+        /**
+         * Difficulty score, 0 when random moves always win and 12 when they (almost) never do
+         * @return -log10 of the chance to win with random moves
+         */
+        public double getDifficulty() {
+            return difficulty(winChance);
+        }
+    }
+
+    /**
+     * Result of distribution(): chance to win and how the sum is spread out when the game ends
+     */
+    public static class Distribution {
+        private final double[] endSums;
+        private final double winChance, mean, standardDeviation;
+
+        /**
+         * @param endSums chance that the game ends with each sum, adds up to 1
+         * @param winChance chance that the sum hits target value on any move
+         */
+        Distribution(double[] endSums, double winChance) {
+            this.endSums = endSums;
+            this.winChance = winChance;
+            double sum = 0, squares = 0;
+            for (int s = 0; s < endSums.length; s++) {
+                sum += s * endSums[s];
+                squares += (double) s * s * endSums[s];
+            }
+            mean = sum;
+            standardDeviation = Math.sqrt(Math.max(0, squares - sum * sum));
+        }
+
+        /**
+         * @return expected sum at the end of the game, games won early end on target value
+         */
+        public double getMean() {
+            return mean;
+        }
+
+        public double getStandardDeviation() {
+            return standardDeviation;
+        }
+
+        /**
+         * @return chance that random moves win the game
+         */
+        public double getWinChance() {
+            return winChance;
+        }
+
+        /**
+         * Difficulty score, 0 when random moves always win and 12 when they (almost) never do
+         * @return -log10 of the chance to win with random moves
+         */
+        public double getDifficulty() {
+            return difficulty(winChance);
+        }
+
+        /**
+         * @param p fraction of games, between 0 and 1
+         * @return smallest sum that at least p of the games end with
+         */
+        public int quantile(double p) {
+            double total = 0;
+            for (int s = 0; s < endSums.length; s++) {
+                total += endSums[s];
+                if (total >= p) {
+                    return s;
+                }
+            }
+            return endSums.length - 1;
+        }
+    }
+
+    /**
+     * Estimates a new game, buttons get random values 0-8 like in GameGui
+     * @param settings rows, columns, moves and target value of the game
+     * @return estimate of the game
+     */
+    public static Estimate estimate(Settings settings) {
+        int n = settings.getRows() * settings.getCols();
+        double[] digits = new double[10];
+        for (int d = 0; d < 9; d++) {
+            digits[d] = 1.0 / 9;
+        }
+        return estimate(settings.getRows(), settings.getCols(), settings.getMovesLeft(), new String[0],
+                digits, digits, 4.0 * n, 16.0 * n, settings.getTargetVal());
+    }
+
+    /**
+     * Estimates the rest of a game that is already running
+     * @param state current game state, is not changed
+     * @return estimate of the game
+     */
+    public static Estimate estimate(GameState state) {
+        if (state.isOver()) {
+            return new Estimate(state.getSum(), 0, state.getSum() == state.getTargetVal() ? 1 : 0);
+        }
+        int n = state.getRows() * state.getCols();
+        double[] digits = new double[10];
+        double sumOfValues = 0, sumOfSquares = 0;
+        for (int i = 0; i < state.getRows(); i++) {
+            for (int j = 0; j < state.getCols(); j++) {
+                int value = state.getValue(i, j);
+                digits[value] += 1.0 / n;
+                sumOfValues += value;
+                sumOfSquares += value * value;
+            }
+        }
+        return estimate(state.getRows(), state.getCols(), state.getMovesLeft(), knownOperators(state),
+                digits, selectedDigits(state, digits), sumOfValues, sumOfSquares, state.getTargetVal());
+    }
+
+    /**
+     * Same as estimate(Settings) with the chance of every sum at the end of the game, takes milliseconds
+     * @param settings rows, columns, moves and target value of the game
+     * @return distribution of the game
+     */
+    public static Distribution distribution(Settings settings) {
+        int n = settings.getRows() * settings.getCols();
+        double[] digits = new double[10];
+        for (int d = 0; d < 9; d++) {
+            digits[d] = 1.0 / 9;
+        }
+        double[] sums = new double[8 * n + 1];
+        double[] next = new double[sums.length];
+        sums[0] = 1;
+        for (int i = 1; i <= n; i++) { // sum of i random buttons, each sum is the average of 9 sums before it
+            double window = 0;
+            for (int s = 0; s <= 8 * i; s++) {
+                window += s < sums.length ? sums[s] : 0;
+                if (s >= 9) {
+                    window -= sums[s - 9];
+                }
+                next[s] = window / 9;
+            }
+            double[] swap = sums;
+            sums = next;
+            next = swap;
+        }
+        return distribution(settings.getRows(), settings.getCols(), settings.getMovesLeft(), new String[0],
+                digits, digits, sums, settings.getTargetVal());
+    }
+
+    /**
+     * Same as estimate(GameState) with the chance of every sum at the end of the game, takes milliseconds
+     * @param state current game state, is not changed
+     * @return distribution of the game
+     */
+    public static Distribution distribution(GameState state) {
+        int n = state.getRows() * state.getCols();
+        double[] sums = new double[9 * n + 1];
+        sums[state.getSum()] = 1;
+        if (state.isOver()) {
+            return new Distribution(sums, state.getSum() == state.getTargetVal() ? 1 : 0);
+        }
+        double[] digits = new double[10];
+        for (int i = 0; i < state.getRows(); i++) {
+            for (int j = 0; j < state.getCols(); j++) {
+                digits[state.getValue(i, j)] += 1.0 / n;
+            }
+        }
+        return distribution(state.getRows(), state.getCols(), state.getMovesLeft(), knownOperators(state),
+                digits, selectedDigits(state, digits), sums, state.getTargetVal());
+    }
+
+    private static String[] knownOperators(GameState state) {
+        String[] operators = new String[Math.max(0, Math.min(state.getMovesLeft(), state.getNumOfOperators()))];
+        for (int i = 0; i < operators.length; i++) {
+            operators[i] = state.getOperator(i);
+        }
+        return operators;
+    }
+
+    /**
+     * @return digits of the grid or the selected button's value, the next move starts from it
+     */
+    private static double[] selectedDigits(GameState state, double[] digits) {
+        if (state.getSelectedRow() == -1) {
+            return digits;
+        }
+        double[] selected = new double[10];
+        selected[state.getValue(state.getSelectedRow(), state.getSelectedCol())] = 1;
+        return selected;
+    }
+
+    /**
+     * Plays the moves on the digit frequencies and follows the mean and spread of the sum
+     * The chance to win is put together from the chance to be on target value after each move:
+     * each of those is a first hit or a return after an earlier hit, and returns are worked out from how
+     * the sum moves around target value, which is pulled back towards the mean of the grid
+     * @param rows number of rows of the button grid
+     * @param cols number of columns of the button grid
+     * @param movesLeft moves to play
+     * @param operators known operators in queue, the rest is treated as random
+     * @param digits how often each digit appears on the grid, adds up to 1
+     * @param firstSelected how often each digit is the selected button of the first move
+     * @param sumOfValues sum of the expected button values
+     * @param sumOfSquares sum of the squared expected button values
+     * @param target target value, the game is won when the sum hits it
+     * @return estimate of the game
+     */
+    private static Estimate estimate(int rows, int cols, int movesLeft, String[] operators, double[] digits,
+                                     double[] firstSelected, double sumOfValues, double sumOfSquares, int target) {
+        int n = rows * cols;
+        int crossSize = rows + cols - 2;
+        double[] m = digits.clone(); // all buttons
+        double[] selected = firstSelected.clone();
+        double[] result = new double[10], clicked = new double[10];
+        double[] tiltedM = new double[10], tiltedSelected = new double[10], deltas = new double[19];
+        double[] onTarget = new double[movesLeft + 1]; // after each move, earlier wins are not taken out
+        double alive = 1;
+        double untouched = 1; // chance that a button still has its starting value
+        double mean = sumOfValues, variance = 0;
+        double drift = 0, spread = 0, stay = 0, pull = 0; // change of the sum at target value
+
+        for (int k = 0; k < movesLeft; k++) {
+            int op = k < operators.length ? GameState.operatorIndex(operators[k]) : -1;
+            alive *= 1 - mix(op, selected, m, crossSize, result, clicked);
+            if (k == movesLeft / 2) { // how the sum moves around target value with the grid halfway through, operators are random by then
+                double theta = tilt(m, (double) target / n, 0, tiltedM);
+                kernel(-1, m, selected, theta, crossSize, tiltedM, tiltedSelected, deltas);
+                stay = deltas[9];
+                for (int d = 0; d < 19; d++) {
+                    drift += (d - 9) * deltas[d];
+                    spread += (d - 9) * (d - 9) * deltas[d];
+                }
+                spread -= drift * drift;
+                // the drift half a digit per button below target value minus the drift half a digit above it
+                kernel(-1, m, selected, tilt(m, (target - n * 0.5) / n, theta, tiltedM), crossSize,
+                        tiltedM, tiltedSelected, deltas);
+                for (int d = 0; d < 19; d++) {
+                    pull += (d - 9) * deltas[d] / n;
+                }
+                kernel(-1, m, selected, tilt(m, (target + n * 0.5) / n, theta, tiltedM), crossSize,
+                        tiltedM, tiltedSelected, deltas);
+                for (int d = 0; d < 19; d++) {
+                    pull -= (d - 9) * deltas[d] / n;
+                }
+            }
+
+            for (int r = 0; r < 10; r++) {
+                m[r] = Math.max(0, m[r] + (result[r] - selected[r]) / n);
+            }
+            System.arraycopy(clicked, 0, selected, 0, 10);
+            untouched *= 1 - 1.0 / n;
+
+            double digitMean = 0, squares = 0;
+            for (int r = 0; r < 10; r++) {
+                digitMean += r * m[r];
+                squares += r * r * m[r];
+            }
+            // expected value of each button is untouched * starting value + shift, the shift keeps the total right
+            double shift = (n * digitMean - untouched * sumOfValues) / n;
+            double squaredMeans = untouched * untouched * sumOfSquares + 2 * untouched * shift * sumOfValues
+                    + n * shift * shift;
+            mean = n * digitMean;
+            variance = Math.max(0, n * squares - squaredMeans);
+            onTarget[k + 1] = alive * lattice(mean, variance, target);
+        }
+
+        // chance to be on target value again j moves after being on it, the pull makes the sum drift back
+        pull = Math.max(1e-4, Math.min(1, pull));
+        double keep = 1 - pull;
+        double[] back = new double[movesLeft + 1];
+        for (int j = 1; j <= movesLeft; j++) {
+            back[j] = j == 1 ? stay : lattice(drift * (1 - Math.pow(keep, j)) / pull,
+                    spread * (1 - Math.pow(keep, 2 * j)) / (1 - keep * keep), 0);
+        }
+        double[] firstHit = new double[movesLeft + 1];
+        double winChance = 0;
+        for (int k = 1; k <= movesLeft; k++) {
+            double hit = onTarget[k];
+            for (int j = 1; j < k; j++) {
+                hit -= firstHit[j] * back[k - j];
+            }
+            firstHit[k] = Math.max(0, hit);
+            winChance += firstHit[k];
+        }
+        return new Estimate(mean, Math.sqrt(variance), Math.min(1, winChance));
+    }
+
+    /**
+     * Plays the moves on the digit frequencies and on the distribution of the sum
+     * Each move replaces the selected digit with the result of current operator and a digit from the cross,
+     * the clicked digit becomes the selected one for the next move
+     * With / the cross can't contain zeros and the game ends right away if all of it is zeros
+     * Games with a high sum have more high digits than the average grid, so for every sum the digit
+     * frequencies are tilted until their mean matches it; this pulls the sum back like on a real grid
+     * The tilted change of the sum is worked out once per move for a few means and interpolated for each sum
+     * @param rows number of rows of the button grid
+     * @param cols number of columns of the button grid
+     * @param movesLeft moves to play
+     * @param operators known operators in queue, the rest is treated as random
+     * @param digits how often each digit appears on the grid, adds up to 1
+     * @param firstSelected how often each digit is the selected button of the first move
+     * @param startSums chance of each sum before the first move
+     * @param target target value, the game is won when the sum hits it
+     * @return distribution of the game
+     */
+    private static Distribution distribution(int rows, int cols, int movesLeft, String[] operators,
+                                             double[] digits, double[] firstSelected, double[] startSums, int target) {
+        int n = rows * cols;
+        int crossSize = rows + cols - 2;
+        double[] m = digits.clone(); // all buttons
+        double[] selected = firstSelected.clone();
+        double[] result = new double[10], clicked = new double[10];
+        double[] tiltedM = new double[10], tiltedSelected = new double[10];
+        // change of the sum -9..9 and chance to get stuck for mean digit value GRID_STEP * g
+        double[][] gridDeltas = new double[GRID_POINTS][19];
+        double[] gridStuck = new double[GRID_POINTS], gridTheta = new double[GRID_POINTS];
+        double[] gridM = new double[10], gridSelected = new double[10];
+        int gridOp = -2, gridFirst = GRID_POINTS, gridLast = -1; // points firstPoint..lastPoint are up to date
+        double[] running = Arrays.copyOf(startSums, 9 * n + 1);
+        double[] next = new double[running.length];
+        double[] endSums = new double[running.length];
+        double winChance = 0;
+
+        for (int k = 0; k < movesLeft; k++) {
+            int op = k < operators.length ? GameState.operatorIndex(operators[k]) : -1;
+            Arrays.fill(next, 0);
+            int low = 0, high = running.length - 1;
+            while (low < high && running[low] < MIN_CHANCE) {
+                endSums[low] += running[low];
+                low++;
+            }
+            while (high > low && running[high] < MIN_CHANCE) {
+                endSums[high] += running[high];
+                high--;
+            }
+            int firstPoint = (int) (low / (GRID_STEP * n));
+            int lastPoint = Math.min(GRID_POINTS - 1, (int) Math.ceil(high / (GRID_STEP * n)));
+            if (op != gridOp || distance(m, gridM) + distance(selected, gridSelected) > REFRESH) {
+                gridOp = op;
+                System.arraycopy(m, 0, gridM, 0, 10);
+                System.arraycopy(selected, 0, gridSelected, 0, 10);
+                gridFirst = GRID_POINTS;
+                gridLast = -1;
+            }
+            for (int g = firstPoint; g <= lastPoint; g++) { // the tilt of the previous move is a close guess
+                if (g >= gridFirst && g <= gridLast) {
+                    continue;
+                }
+                gridTheta[g] = tilt(gridM, g * GRID_STEP, gridTheta[g], tiltedM);
+                gridStuck[g] = kernel(op, gridM, gridSelected, gridTheta[g], crossSize,
+                        tiltedM, tiltedSelected, gridDeltas[g]);
+            }
+            if (gridLast == -1) {
+                gridFirst = firstPoint;
+                gridLast = lastPoint;
+            } else {
+                gridFirst = Math.min(gridFirst, firstPoint);
+                gridLast = Math.max(gridLast, lastPoint);
+            }
+            for (int s = low; s <= high; s++) {
+                double point = s / (GRID_STEP * n);
+                int g = Math.min((int) point, GRID_POINTS - 2);
+                double f = Math.min(1, point - g);
+                double stuck = (1 - f) * gridStuck[g] + f * gridStuck[g + 1];
+                endSums[s] += running[s] * stuck; // no button to click, lost with this sum
+                double alive = running[s] * (1 - stuck);
+                double fromBelow = alive * (1 - f), fromAbove = alive * f;
+                double[] below = gridDeltas[g], above = gridDeltas[g + 1];
+                for (int d = Math.max(0, 9 - s); d < 19 && s + d - 9 < next.length; d++) {
+                    next[s + d - 9] += fromBelow * below[d] + fromAbove * above[d];
+                }
+            }
+            if (target >= 0 && target < next.length) { // won as soon as the sum hits target value
+                winChance += next[target];
+                endSums[target] += next[target];
+                next[target] = 0;
+            }
+            double[] swap = running;
+            running = next;
+            next = swap;
+
+            mix(op, selected, m, crossSize, result, clicked);
+            for (int r = 0; r < 10; r++) {
+                m[r] = Math.max(0, m[r] + (result[r] - selected[r]) / n);
+            }
+            System.arraycopy(clicked, 0, selected, 0, 10);
+        }
+
+        for (int s = 0; s < running.length; s++) {
+            endSums[s] += running[s];
+        }
+        return new Distribution(endSums, winChance);
+    }
+
+    /**
+     * Works out how a move changes the sum when the digit frequencies are tilted by theta
+     * @param op index of the operator, -1 for a random one
+     * @param m how often each digit appears on the grid
+     * @param selected how often each digit is the selected one
+     * @param theta tilt of the digit frequencies
+     * @param crossSize number of buttons that can be clicked
+     * @param tiltedM filled with the tilted grid
+     * @param tiltedSelected filled with the tilted selected digit
+     * @param deltas filled with the chance of each change -9..9 of the sum
+     * @return chance that no button can be clicked
+     */
+    private static double kernel(int op, double[] m, double[] selected, double theta, int crossSize,
+                                 double[] tiltedM, double[] tiltedSelected, double[] deltas) {
+        tilt(m, theta, tiltedM);
+        tilt(selected, theta, tiltedSelected);
+        Arrays.fill(deltas, 0);
+        double stuck = 0;
+        for (int o = op == -1 ? 0 : op; o < (op == -1 ? GameState.OPERATORS.length : op + 1); o++) {
+            double weight = op == -1 ? 1.0 / GameState.OPERATORS.length : 1;
+            if (o == 3) {
+                stuck += weight * Math.pow(tiltedM[0], crossSize);
+            }
+            addDeltas(o, tiltedSelected, tiltedM, weight, deltas);
+        }
+        return stuck;
+    }
+
+    /**
+     * Applies the operator, or all of them equally often, to the digit frequencies
+     * @param op index of the operator, -1 for a random one
+     * @param selected how often each digit is the selected one
+     * @param m how often each digit appears on the grid
+     * @param crossSize number of buttons that can be clicked
+     * @param result filled with the distribution of the digit stored in the selected button
+     * @param clicked filled with the distribution of the clicked digit
+     * @return chance that no button can be clicked
+     */
+    private static double mix(int op, double[] selected, double[] m, int crossSize, double[] result, double[] clicked) {
+        if (op != -1) {
+            transition(op, selected, m, result, clicked);
+            return op == 3 ? Math.pow(m[0], crossSize) : 0;
+        }
+        double[] opResult = new double[10], opClicked = new double[10];
+        Arrays.fill(result, 0);
+        Arrays.fill(clicked, 0);
+        for (int o = 0; o < GameState.OPERATORS.length; o++) {
+            transition(o, selected, m, opResult, opClicked);
+            for (int r = 0; r < 10; r++) {
+                result[r] += opResult[r] / GameState.OPERATORS.length;
+                clicked[r] += opClicked[r] / GameState.OPERATORS.length;
+            }
+        }
+        return Math.pow(m[0], crossSize) / GameState.OPERATORS.length;
+    }
+
+    /**
+     * Chance that a whole number near a normal distribution is exactly the given one
+     * @param mean mean of the distribution
+     * @param variance variance, at least a quarter so the chance is never more than about 0.4
+     * @param at the number
+     * @return chance of the number
+     */
+    private static double lattice(double mean, double variance, double at) {
+        double deviation = Math.sqrt(Math.max(0.25, variance));
+        return normal((at + 0.5 - mean) / deviation) - normal((at - 0.5 - mean) / deviation);
+    }
+
+    /**
+     * Cumulative normal distribution
+     * source: Abramowitz and Stegun 7.1.26
+     */
+    private static double normal(double z) {
+        double x = Math.abs(z) / Math.sqrt(2);
+        double t = 1 / (1 + 0.3275911 * x);
+        double erf = 1 - t * (0.254829592 + t * (-0.284496736 + t * (1.421413741 + t * (-1.453152027 + t * 1.061405429))))
+                * Math.exp(-x * x);
+        return z >= 0 ? (1 + erf) / 2 : (1 - erf) / 2;
+    }
+
+    private static double difficulty(double winChance) {
+        return Math.min(12, -Math.log10(Math.max(winChance, 1e-12)));
+    }
+
+    /**
+     * Adds how a move changes the sum: the selected digit is replaced with the result
+     * @param op index of the operator
+     * @param selected how often each digit is the selected one
+     * @param m how often each digit appears on the grid, the clicked digit is taken from it
+     * @param weight chance of the operator
+     * @param deltas chance of each change -9..9 of the sum, added to
+     */
+    private static void addDeltas(int op, double[] selected, double[] m, double weight, double[] deltas) {
+        double partners = op == 3 ? 1 - m[0] : 1;
+        if (partners <= 0) {
+            return;
+        }
+        for (int arg2 = op == 3 ? 1 : 0; arg2 < 10; arg2++) {
+            double w = weight * m[arg2] / partners;
+            if (w == 0) {
+                continue;
+            }
+            for (int arg1 = 0; arg1 < 10; arg1++) {
+                deltas[GameState.RESULTS[op][arg1][arg2] - arg1 + 9] += selected[arg1] * w;
+            }
+        }
+    }
+
+    private static double distance(double[] a, double[] b) {
+        double distance = 0;
+        for (int d = 0; d < 10; d++) {
+            distance += Math.abs(a[d] - b[d]);
+        }
+        return distance;
+    }
+
+    /**
+     * Tilts digit frequencies so their mean becomes the given mean
+     * @param digits how often each digit appears
+     * @param mean wanted mean
+     * @param theta starting guess, the tilt of the previous sum is close
+     * @param tilted filled with digits[d] * e^(theta * d), normalized
+     * @return the tilt theta that was used
+     */
+    private static double tilt(double[] digits, double mean, double theta, double[] tilted) {
+        double low = -30, high = 30; // the mean grows with theta, Newton steps that leave the bracket are halved instead
+        for (int i = 0; i < 50; i++) {
+            tilt(digits, theta, tilted);
+            double current = 0, squares = 0;
+            for (int d = 0; d < 10; d++) {
+                current += d * tilted[d];
+                squares += d * d * tilted[d];
+            }
+            if (Math.abs(current - mean) < 1e-6) {
+                break;
+            }
+            if (current < mean) {
+                low = theta;
+            } else {
+                high = theta;
+            }
+            double variance = squares - current * current;
+            double newton = variance > 1e-9 ? theta + (mean - current) / variance : Double.NaN;
+            theta = newton > low && newton < high ? newton : (low + high) / 2;
+        }
+        return theta;
+    }
+
+    private static void tilt(double[] digits, double theta, double[] tilted) {
+        double x = Math.exp(theta), power = 1, total = 0;
+        for (int d = 0; d < 10; d++) {
+            tilted[d] = digits[d] * power;
+            total += tilted[d];
+            power *= x;
+        }
+        for (int d = 0; d < 10; d++) {
+            tilted[d] /= total;
+        }
+    }
+
+    /**
+     * Applies the operator's 10x10 digit table to the selected and clicked digits
+     * @param op index of the operator
+     * @param selected how often each digit is the selected one
+     * @param m how often each digit appears on the grid, the clicked digit is taken from it
+     * @param result filled with the distribution of the digit stored in the selected button
+     * @param clicked filled with the distribution of the clicked digit
+     */
+    private static void transition(int op, double[] selected, double[] m, double[] result, double[] clicked) {
+        Arrays.fill(result, 0);
+        Arrays.fill(clicked, 0);
+        double partners = op == 3 ? 1 - m[0] : 1;
+        if (partners <= 0) { // only zeros left, nothing can be divided
+            System.arraycopy(selected, 0, result, 0, 10);
+            System.arraycopy(m, 0, clicked, 0, 10);
+            return;
+        }
+        for (int arg2 = op == 3 ? 1 : 0; arg2 < 10; arg2++) {
+            double w = m[arg2] / partners;
+            clicked[arg2] = w;
+            if (w == 0) {
+                continue;
+            }
+            for (int arg1 = 0; arg1 < 10; arg1++) {
+                result[GameState.RESULTS[op][arg1][arg2]] += selected[arg1] * w;
+            }
+        }
+    }
+
+    /**
+     * Compares estimates of the difficulty presets with random games played with GameState
+     * @param args optional number of random games per preset
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int[][] presets = {{5, 5, 111, 60}, {6, 6, 150, 50}, {7, 7, 222, 30}};
+        String[] names = {"Easy", "Medium", "Hard"};
+        Random random = new Random(42);
+
+        for (int p = 0; p < presets.length; p++) {
+            Settings settings = new Settings();
+            settings.setNumOfRows(presets[p][0]);
+            settings.setNumOfCols(presets[p][1]);
+            settings.setTargetValue(presets[p][2]);
+            settings.setMovesLeft(presets[p][3]);
+
+            int repeats = 10000;
+            Estimate estimate = null;
+            for (int i = 0; i < repeats; i++) { // let the JIT compile it first
+                estimate = estimate(settings);
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < repeats; i++) {
+                estimate = estimate(settings);
+            }
+            double micros = (System.nanoTime() - start) / 1e3 / repeats;
+            start = System.nanoTime();
+            Distribution distribution = null;
+            for (int i = 0; i < 100; i++) {
+                distribution = distribution(settings);
+            }
+            double millis = (System.nanoTime() - start) / 1e6 / 100;
+
+            int[] endSums = new int[games];
+            int wins = 0;
+            for (int g = 0; g < games; g++) {
+                GameState state = new GameState(settings, random);
+                randomGame(state, random);
+                endSums[g] = state.getSum();
+                if (state.getSum() == settings.getTargetVal()) {
+                    wins++;
+                }
+            }
+            Arrays.sort(endSums);
+            double sum = 0, sumOfSquares = 0;
+            for (int endSum : endSums) {
+                sum += endSum;
+                sumOfSquares += (double) endSum * endSum;
+            }
+            double mean = sum / games;
+            double deviation = Math.sqrt(Math.max(0, sumOfSquares / games - mean * mean));
+
+            System.out.printf("%-6s target %d, difficulty %.2f (estimate %.1f us, distribution %.2f ms)%n", names[p],
+                    settings.getTargetVal(), estimate.getDifficulty(), micros, millis);
+            System.out.printf("  win chance: estimate %.4f, distribution %.4f, random games %.4f%n",
+                    estimate.getWinChance(), distribution.getWinChance(), (double) wins / games);
+            System.out.printf("  sum at the end: distribution mean %.1f sd %.1f, 95%% in %d..%d;"
+                            + " random games mean %.1f sd %.1f, 95%% in %d..%d%n",
+                    distribution.getMean(), distribution.getStandardDeviation(),
+                    distribution.quantile(0.025), distribution.quantile(0.975),
+                    mean, deviation, endSums[(int) (0.025 * games)], endSums[(int) (0.975 * games)]);
+        }
+    }
+
+    /**
+     * Clicks random available buttons until the game is won or lost
+     */
+    private static void randomGame(GameState state, Random random) {
+        while (state.clickRandom(random) != null) {
+            // keep clicking
+        }
+    }
+}
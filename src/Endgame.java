@@ -0,0 +1,162 @@
+import java.util.Arrays;
+
+/**
+ * Exact solver for the last few moves of a small game, used by the hint button on the game screen
+ * Only works when all remaining operators are already shown in the queue, so no random operators are involved
+ * Solved positions are remembered in a table of fixed size, one Endgame belongs to one game
+ */
+public class Endgame {
+    public static final int MAX_MOVES = 4, MAX_BUTTONS = 49;
+    private static final int TABLE_SIZE = 1 << 16, NODE_BUDGET = 200_000;
+
+    private final int words; // longs in a packed position
+    private final long[] keys;
+    private final short[] distances;
+    private int stored, nodes;
+    private boolean aborted;
+
+    /**
+     * @param rows number of rows of the game
+     * @param cols number of columns of the game
+     */
+    public Endgame(int rows, int cols) {
+        // 4 bits per button, 7 bits for the selected button and 8 bits for moves left
+        words = (rows * cols * 4 + 15 + 63) / 64;
+        keys = new long[TABLE_SIZE * words];
+        distances = new short[TABLE_SIZE];
+        Arrays.fill(distances, (short) -1);
+    }
+
+    /**
+     * Checks if the rest of the game is small enough to be solved right away
+     * @param state current game state
+     * @return true if all remaining operators are in the queue and there are few moves and buttons
+     */
+    public static boolean isEndgame(GameState state) {
+        return state.getMovesLeft() <= state.getNumOfOperators() && isEndgame(state.getRows(), state.getCols(), state.getMovesLeft());
+    }
+
+    /**
+     * Same as isEndgame(GameState) for a game that shows one operator per row
+     * @param rows number of rows of the game
+     * @param cols number of columns of the game
+     * @param movesLeft moves left in the game
+     * @return true if there are few moves and buttons left
+     */
+    public static boolean isEndgame(int rows, int cols, int movesLeft) {
+        return movesLeft > 0 && movesLeft <= rows && movesLeft <= MAX_MOVES && rows * cols <= MAX_BUTTONS;
+    }
+
+    /**
+     * Finds the smallest distance to target value the player can still end the game with
+     * @param state current game state, is not changed
+     * @return 0 if the target value can still be reached, -1 if the position is too big to solve
+     */
+    public int bestDistance(GameState state) {
+        if (!isEndgame(state)) {
+            return -1;
+        }
+        nodes = 0;
+        aborted = false;
+        int distance = solve(state);
+        return aborted ? -1 : distance;
+    }
+
+    /**
+     * Finds the button to click next to end the game as close to target value as possible
+     * @param state current game state, is not changed
+     * @return row and column of the button or null if the game is over or too big to solve
+     */
+    public int[] bestMove(GameState state) {
+        if (!isEndgame(state)) {
+            return null;
+        }
+        nodes = 0;
+        aborted = false;
+        int[] best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < state.getRows(); i++) {
+            for (int j = 0; j < state.getCols(); j++) {
+                GameState next = new GameState(state);
+                if (next.click(i, j)) {
+                    int distance = solve(next);
+                    if (aborted) {
+                        return null;
+                    }
+                    if (distance < bestDistance) {
+                        bestDistance = distance;
+                        best = new int[]{i, j};
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private int solve(GameState state) {
+        if (state.isOver()) {
+            return Math.abs(state.getTargetVal() - state.getSum());
+        }
+        if (++nodes > NODE_BUDGET) {
+            aborted = true;
+            return 0;
+        }
+        long[] key = pack(state);
+        int slot = find(key);
+        if (distances[slot] >= 0) {
+            return distances[slot];
+        }
+        int best = Integer.MAX_VALUE;
+        for (int i = 0; i < state.getRows() && best > 0 && !aborted; i++) {
+            for (int j = 0; j < state.getCols() && best > 0 && !aborted; j++) {
+                if (state.isEnabled(i, j)) {
+                    GameState next = new GameState(state);
+                    next.click(i, j);
+                    best = Math.min(best, solve(next));
+                }
+            }
+        }
+        if (!aborted && stored < TABLE_SIZE * 3 / 4) { // a full table just stops remembering
+            System.arraycopy(key, 0, keys, slot * words, words);
+            distances[slot] = (short) best;
+            stored++;
+        }
+        return best;
+    }
+
+    /**
+     * Buttons, selection and moves left; operators and target value are the same for all positions of a game
+     */
+    private long[] pack(GameState state) {
+        long[] key = new long[words];
+        int bit = 0;
+        for (int i = 0; i < state.getRows(); i++) {
+            for (int j = 0; j < state.getCols(); j++) {
+                key[bit >> 6] |= (long) state.getValue(i, j) << (bit & 63);
+                bit += 4;
+            }
+        }
+        int selected = state.getSelectedRow() == -1 ? 0 : 1 + state.getSelectedRow() * state.getCols() + state.getSelectedCol();
+        long rest = selected | (long) (state.getMovesLeft() + 2) << 7;
+        key[bit >> 6] |= rest << (bit & 63);
+        if ((bit & 63) > 64 - 15) {
+            key[(bit >> 6) + 1] |= rest >>> (64 - (bit & 63));
+        }
+        return key;
+    }
+
+    /**
+     * @return slot holding the key or the empty slot where it belongs
+     */
+    private int find(long[] key) {
+        long hash = 0;
+        for (long word : key) {
+            hash = (hash + word) * 0x9e3779b97f4a7c15L;
+        }
+        int slot = (int) (hash >>> 48) & (TABLE_SIZE - 1);
+        while (distances[slot] >= 0 && !Arrays.equals(keys, slot * words, slot * words + words, key, 0, words)) {
+            slot = (slot + 1) & (TABLE_SIZE - 1);
+        }
+        return slot;
+    }
+}
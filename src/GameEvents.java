@@ -0,0 +1,121 @@
+import jdk.jfr.*;
+
+/**
+ * Flight Recorder events of the game, all disabled unless a recording turns them on, for example with game.jfc:
+ * java -XX:StartFlightRecording:settings=game.jfc,filename=game.jfr VDN2
+ * Every event has the number of the game it happened in, RecordingAnalyzer summarizes a recording per game
+ */
+public class GameEvents {
+    private static final String CATEGORY = "Weird Math Game";
+
+    @Name("weirdmath.Move")
+    @Label("Move")
+    @Description("Click on a button that played a move")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    public static class Move extends Event {
+        @Label("Game")
+        public int game;
+        @Label("Operator")
+        public String operator;
+        @Label("Row")
+        public int row;
+        @Label("Column")
+        public int col;
+        @Label("Result")
+        public int result;
+        @Label("Moves Left")
+        public int movesLeft;
+    }
+
+    @Name("weirdmath.CrossScan")
+    @Label("Cross Scan")
+    @Description("Enabling and disabling buttons around the selected button")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    public static class CrossScan extends Event {
+        @Label("Game")
+        public int game;
+        @Label("Selected Row")
+        public int row;
+        @Label("Selected Column")
+        public int col;
+        @Label("Available Buttons")
+        public int availableButtons;
+    }
+
+    @Name("weirdmath.SaveFile")
+    @Label("Save File")
+    @Description("Saving, loading or checking the save file")
+    @Category(CATEGORY)
+    @Enabled(false)
+    public static class SaveFile extends Event {
+        @Label("Game")
+        public int game;
+        @Label("Operation")
+        public String operation;
+        @Label("Path")
+        public String path;
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+        @Label("Success")
+        public boolean success;
+    }
+
+    @Name("weirdmath.ImageLoad")
+    @Label("Image Load")
+    @Description("Loading the picture of the post-game screen")
+    @Category(CATEGORY)
+    @Enabled(false)
+    public static class ImageLoad extends Event {
+        @Label("Game")
+        public int game;
+        @Label("Path")
+        public String path;
+        @Label("Success")
+        public boolean success;
+    }
+
+    @Name("weirdmath.GameStart")
+    @Label("Game Start")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    public static class GameStart extends Event {
+        @Label("Game")
+        public int game;
+        @Label("Loaded From File")
+        public boolean loaded;
+        @Label("Rows")
+        public int rows;
+        @Label("Columns")
+        public int cols;
+        @Label("Moves")
+        public int moves;
+        @Label("Target Value")
+        public int targetValue;
+        @Label("Moves Left")
+        public int movesLeft;
+    }
+
+    @Name("weirdmath.GameEnd")
+    @Label("Game End")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    public static class GameEnd extends Event {
+        @Label("Game")
+        public int game;
+        @Label("Won")
+        public boolean won;
+        @Label("Sum")
+        public int sum;
+        @Label("Target Value")
+        public int targetValue;
+        @Label("Moves Left")
+        public int movesLeft;
+    }
+}
@@ -7,7 +7,7 @@ import java.io.*;
 import java.util.Random;
 
 public class GameGui {
-    private final JFrame frame = new JFrame();
+    private final JFrame frame;
     private JPanel gamePanel, buttonsPanel, nextOperatorsPanel;
     private JLabel targetValueLabel, currentSumLabel, movesLeftLabel;
     private JLabel[] operatorsLabels;
@@ -17,8 +17,27 @@ public class GameGui {
     private Settings settings;
     private GridButton[][] buttons;
     private JSpinner rowSpinner, colSpinner, targetSpinner, moveSpinner;
+    private final SpectatorFeed feed;
+    private int gameNumber;
+    private boolean gameOver;
+    private final File saveFile;
+    private JButton hintButton;
+    private Endgame endgame;
+    private GridButton hintedButton;
 
     GameGui() {
+        this(null);
+    }
+
+    /**
+     * Creates the game window
+     * @param feed feed that gets every change of the game for spectators or null
+     */
+    GameGui(SpectatorFeed feed) {
+        this.feed = feed;
+        this.frame = new JFrame();
+        this.saveFile = new File("src/saveData.txt");
+
         // change look and feel to nimbus
         // source: https://docs.oracle.com/javase/tutorial/uiswing/lookandfeel/index.html
         try {
@@ -37,6 +56,19 @@ public class GameGui {
         mainMenu();
     }
 
+    /**
+     * Creates the game without a window, works with -Djava.awt.headless=true
+     * Used to play games from code by clicking the buttons, start a game with init()
+     * @param settings settings of the games
+     * @param saveFile file used instead of src/saveData.txt
+     */
+    GameGui(Settings settings, File saveFile) {
+        this.feed = null;
+        this.frame = null;
+        this.settings = settings;
+        this.saveFile = saveFile;
+    }
+
     /**
      * Sets up main menu with default settings defined in Settings.java
      */
@@ -216,7 +248,11 @@ public class GameGui {
 
         selectedButtonRow = -1;
         selectedButtonCol = -1;
-        frame.setResizable(true);
+        gameNumber++;
+        gameOver = false;
+        if (frame != null) {
+            frame.setResizable(true);
+        }
 
         gamePanel = new JPanel(new BorderLayout());
 
@@ -237,11 +273,29 @@ public class GameGui {
                 BorderFactory.createEmptyBorder(5, 5, 5, 15)
         );
         setupNextOperators(newOperators);
+        publishStart();
+
+        GameEvents.GameStart startEvent = new GameEvents.GameStart();
+        if (startEvent.shouldCommit()) {
+            startEvent.game = gameNumber;
+            startEvent.loaded = newSettings != null;
+            startEvent.rows = settings.getRows();
+            startEvent.cols = settings.getCols();
+            startEvent.moves = settings.getMovesLeft();
+            startEvent.targetValue = settings.getTargetVal();
+            startEvent.movesLeft = movesLeft;
+            startEvent.commit();
+        }
 
         JPanel savePanel = new JPanel(new BorderLayout());
         JButton saveButton = new JButton("Save & Quit");
         saveButton.addActionListener(e -> save());
         savePanel.add(saveButton, BorderLayout.WEST);
+        endgame = null; // created on the first hint, most games never need its table
+        hintedButton = null;
+        hintButton = new JButton("Hint");
+        hintButton.addActionListener(e -> showHint());
+        savePanel.add(hintButton, BorderLayout.EAST);
         topPanel.add(savePanel);
 
         targetValueLabel = new JLabel("Target value:");
@@ -264,15 +318,17 @@ public class GameGui {
         gamePanel.add(topPanel, BorderLayout.NORTH);
         gamePanel.add(buttonsPanel, BorderLayout.CENTER);
         gamePanel.add(nextOperatorsPanel, BorderLayout.EAST);
-        frame.add(gamePanel);
 
         printTargetValue();
         updateCurrentSum(settings.getRows(), settings.getCols());
         moveDone(true);
-        frame.revalidate();
 
-        frame.pack();
-        frame.setVisible(true);
+        if (frame != null) {
+            frame.add(gamePanel);
+            frame.revalidate();
+            frame.pack();
+            frame.setVisible(true);
+        }
     }
 
     /**
@@ -418,6 +474,54 @@ public class GameGui {
         return sum;
     }
 
+    /**
+     * Counts all numbers on the buttons on the grid without updating the label
+     * @return sum of all numbers on the buttons
+     */
+    private int buttonsSum() {
+        int sum = 0;
+        for (GridButton[] row : buttons) {
+            for (GridButton button : row) {
+                sum = sum + button.getValue();
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Sends the new game to spectators: settings, all buttons and operators shown in queue
+     */
+    private void publishStart() {
+        if (feed == null) {
+            return;
+        }
+        feed.start(gameNumber, settings.getRows(), settings.getCols(), settings.getTargetVal(), movesLeft);
+        for (int i = 0; i < settings.getRows(); i++) {
+            for (int j = 0; j < settings.getCols(); j++) {
+                feed.cell(gameNumber, i, j, buttons[i][j].getValue());
+            }
+        }
+        for (int i = 0; i < operatorsLabels.length && i < movesLeft; i++) {
+            feed.operator(gameNumber, operatorsLabels[i].getText());
+        }
+    }
+
+    GridButton getButton(int row, int col) {
+        return buttons[row][col];
+    }
+
+    int getMovesLeft() {
+        return movesLeft;
+    }
+
+    /**
+     * @param i position in queue, 0 is the operator used next
+     * @return text of the operator label
+     */
+    String getOperator(int i) {
+        return operatorsLabels[i].getText();
+    }
+
     /**
      * Adds action listeners to all buttons
      */
@@ -436,15 +540,23 @@ public class GameGui {
      */
     public void addButtonActionListener(int currentRow, int currentCol) {
         buttons[currentRow][currentCol].addActionListener(e -> {
+            clearHint();
             if (selectedButtonRow == -1 && selectedButtonCol == -1) { // on first button click
                 selectedButtonRow = buttons[currentRow][currentCol].getRow();
                 selectedButtonCol = buttons[currentRow][currentCol].getCol();
+                if (feed != null) {
+                    feed.select(gameNumber, selectedButtonRow, selectedButtonCol);
+                }
                 createAvailableButtonsCross();
             } else { // all other buttons clicked after first one
+                GameEvents.Move moveEvent = new GameEvents.Move();
+                moveEvent.begin();
                 int result = 0;
                 int arg1 = buttons[selectedButtonRow][selectedButtonCol].getValue();
                 int arg2 = buttons[currentRow][currentCol].getValue();
-                switch (operatorsLabels[0].getText()) {
+                int changedRow = selectedButtonRow, changedCol = selectedButtonCol;
+                String operator = operatorsLabels[0].getText();
+                switch (operator) {
                     case "+" -> result = arg1 + arg2;
                     case "-" -> result = arg1 - arg2;
                     case "*" -> result = arg1 * arg2;
@@ -452,23 +564,86 @@ public class GameGui {
                 }
                 result = Math.abs(result % 10);
                 buttons[selectedButtonRow][selectedButtonCol].setValue(result);
+                String nextOperator = null;
                 if (selectedButtonRow != -1) {
                     updateOperators();
+                    if (movesLeft > operatorsLabels.length) { // a random operator was added to the queue
+                        nextOperator = operatorsLabels[operatorsLabels.length - 1].getText();
+                    }
                 }
                 selectedButtonRow = buttons[currentRow][currentCol].getRow();
                 selectedButtonCol = buttons[currentRow][currentCol].getCol();
                 createAvailableButtonsCross();
                 updateCurrentSum(settings.getRows(), settings.getCols());
                 moveDone(); // subtracts 1 from movesLeft and updates label
+                moveEvent.end();
+                if (moveEvent.shouldCommit()) {
+                    moveEvent.game = gameNumber;
+                    moveEvent.operator = operator;
+                    moveEvent.row = changedRow;
+                    moveEvent.col = changedCol;
+                    moveEvent.result = result;
+                    moveEvent.movesLeft = movesLeft;
+                    moveEvent.commit();
+                }
+                if (feed != null) {
+                    feed.move(gameNumber, changedRow, changedCol, result, selectedButtonRow, selectedButtonCol,
+                            operator, nextOperator, buttonsSum(), movesLeft);
+                }
+            }
+            if (feed != null && gameOver) {
+                feed.end(gameNumber, buttonsSum() == settings.getTargetVal(), buttonsSum(), movesLeft);
             }
         });
     }
 
+    /**
+     * Colors the button the player should click next to end the game as close to target value as possible
+     * Only available for the last few moves of small games, see Endgame
+     */
+    private void showHint() {
+        clearHint();
+        int[] values = new int[settings.getRows() * settings.getCols()];
+        for (int i = 0; i < settings.getRows(); i++) {
+            for (int j = 0; j < settings.getCols(); j++) {
+                values[i * settings.getCols() + j] = buttons[i][j].getValue();
+            }
+        }
+        String[] operators = new String[operatorsLabels.length];
+        for (int i = 0; i < operatorsLabels.length; i++) {
+            operators[i] = operatorsLabels[i].getText();
+        }
+        GameState state = new GameState(settings, movesLeft, values, operators, new Random());
+        if (selectedButtonRow != -1) {
+            state.click(selectedButtonRow, selectedButtonCol);
+        }
+        if (endgame == null) {
+            endgame = new Endgame(settings.getRows(), settings.getCols());
+        }
+        int[] move = endgame.bestMove(state);
+        if (move != null) {
+            hintedButton = buttons[move[0]][move[1]];
+            hintedButton.setForeground(Color.RED);
+        } else { // too many positions to search, the button is enabled again after the next move
+            hintButton.setText("No hint");
+            hintButton.setEnabled(false);
+        }
+    }
+
+    private void clearHint() {
+        if (hintedButton != null) {
+            hintedButton.setForeground(null);
+            hintedButton = null;
+        }
+    }
+
     /**
      * Disables numbers that aren't in the same row or column as selected button
      * Also disables all buttons with number 0 if current operator is /
      */
     public void createAvailableButtonsCross() {
+        GameEvents.CrossScan scanEvent = new GameEvents.CrossScan();
+        scanEvent.begin();
         int numOfAvailableButtons = 0;
         for (int i = 0; i < settings.getRows(); i++) {
             for (int j = 0; j < settings.getCols(); j++) {
@@ -484,6 +659,14 @@ public class GameGui {
                 }
             }
         }
+        scanEvent.end();
+        if (scanEvent.shouldCommit()) {
+            scanEvent.game = gameNumber;
+            scanEvent.row = selectedButtonRow;
+            scanEvent.col = selectedButtonCol;
+            scanEvent.availableButtons = numOfAvailableButtons;
+            scanEvent.commit();
+        }
         if (numOfAvailableButtons == 0) { // instant game over if player can't press any buttons
             movesLeft = 0;
             moveDone();
@@ -513,7 +696,11 @@ public class GameGui {
             }
         }
         movesLeftLabel.setText("Moves left: " + movesLeft);
-        frame.revalidate();
+        hintButton.setText("Hint");
+        hintButton.setEnabled(!gameOver && Endgame.isEndgame(settings.getRows(), settings.getCols(), movesLeft));
+        if (frame != null) {
+            frame.revalidate();
+        }
     }
 
     /**
@@ -521,6 +708,19 @@ public class GameGui {
      * @param labelText text displayed to user
      */
     public void postGame(String labelText) {
+        GameEvents.GameEnd endEvent = new GameEvents.GameEnd();
+        if (!gameOver && endEvent.shouldCommit()) {
+            endEvent.game = gameNumber;
+            endEvent.won = !labelText.startsWith("YOU LOST!");
+            endEvent.sum = buttonsSum();
+            endEvent.targetValue = settings.getTargetVal();
+            endEvent.movesLeft = movesLeft;
+            endEvent.commit();
+        }
+        gameOver = true;
+        if (frame == null) {
+            return;
+        }
         frame.remove(gamePanel);
         JPanel postGamePanel = new JPanel(new BorderLayout());
         JPanel whatsNextButtons = new JPanel(new GridLayout(1, 2));
@@ -537,12 +737,12 @@ public class GameGui {
         if (labelText.startsWith("YOU LOST!")) { // loser screen
             postGameLabel.setForeground(Color.WHITE);
             try {
-                myPicture = ImageIO.read(new File("src/loser.jpg"));
+                myPicture = readPicture("src/loser.jpg");
                 picLabel = new JLabel(new ImageIcon(myPicture));
                 postGamePanel.add(picLabel, BorderLayout.CENTER);
             } catch (IOException ignored) {
                 try {
-                    myPicture = ImageIO.read(new File("loser.jpg"));
+                    myPicture = readPicture("loser.jpg");
                     picLabel = new JLabel(new ImageIcon(myPicture));
                     postGamePanel.add(picLabel, BorderLayout.CENTER);
                 } catch (IOException e) {
@@ -552,12 +752,12 @@ public class GameGui {
             postGameLabel.setBackground(Color.RED);
         } else { // winner screen
             try {
-                myPicture = ImageIO.read(new File("src/winner.jpg"));
+                myPicture = readPicture("src/winner.jpg");
                 picLabel = new JLabel(new ImageIcon(myPicture));
                 postGamePanel.add(picLabel, BorderLayout.CENTER);
             } catch (IOException ignored) {
                 try {
-                    myPicture = ImageIO.read(new File("winner.jpg"));
+                    myPicture = readPicture("winner.jpg");
                     picLabel = new JLabel(new ImageIcon(myPicture));
                     postGamePanel.add(picLabel, BorderLayout.CENTER);
                 } catch (IOException e) {
@@ -591,11 +791,55 @@ public class GameGui {
         frame.setResizable(false);
     }
 
+    /**
+     * Reads a picture for the post-game screen
+     * @param path path of the picture
+     * @return the picture
+     * @throws IOException if the picture can't be read
+     */
+    private BufferedImage readPicture(String path) throws IOException {
+        GameEvents.ImageLoad event = new GameEvents.ImageLoad();
+        event.begin();
+        try {
+            BufferedImage picture = ImageIO.read(new File(path));
+            event.success = picture != null;
+            return picture;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.game = gameNumber;
+                event.path = path;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Records a save file operation when the event is enabled
+     * @param event event that was started before the operation
+     * @param operation save, load or check
+     * @param file the save file
+     * @param success true if the operation succeeded
+     */
+    private void commitSaveFileEvent(GameEvents.SaveFile event, String operation, File file, boolean success) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.game = gameNumber;
+            event.operation = operation;
+            event.path = file.getPath();
+            event.bytes = file.length();
+            event.success = success;
+            event.commit();
+        }
+    }
+
     /**
      * Saves the current state of the game to a file
      */
     public void save() {
-        File file = new File("src/saveData.txt");
+        File file = saveFile;
+        GameEvents.SaveFile event = new GameEvents.SaveFile();
+        event.begin();
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
 
             writer.write("Settings");
@@ -618,10 +862,14 @@ public class GameGui {
             writer.write(fileFriendlyOperators());
 
         } catch (IOException e) {
+            commitSaveFileEvent(event, "save", file, false);
             e.printStackTrace();
             throw new RuntimeException(e);
         }
-        frame.dispose(); // closes the window and ends program
+        commitSaveFileEvent(event, "save", file, true);
+        if (frame != null) {
+            frame.dispose(); // closes the window and ends program
+        }
     }
 
     /**
@@ -633,7 +881,10 @@ public class GameGui {
         String [] newButtons;
         String [] newOperators;
 
-        File file = new File("src/saveData.txt");
+        File file = saveFile;
+        GameEvents.SaveFile event = new GameEvents.SaveFile();
+        event.begin();
+        boolean fileRead = false;
         try (BufferedReader reader = new BufferedReader((new FileReader(file)))) {
             String line = reader.readLine();
             if (!line.equals("Settings")) {
@@ -666,8 +917,13 @@ public class GameGui {
                 line = reader.readLine();
                 newOperators = line.split("\\|");
             }
+            commitSaveFileEvent(event, "load", file, true);
+            fileRead = true;
             init(newSettings, newMovesLeft, newButtons, newOperators);
         } catch (Exception ex) {
+            if (!fileRead) {
+                commitSaveFileEvent(event, "load", file, false);
+            }
             ex.printStackTrace();
         }
     }
@@ -715,7 +971,9 @@ public class GameGui {
      * @return true if file is possible to read from
      */
     public boolean readFromFilePossible() {
-        File file = new File("src/saveData.txt");
+        File file = saveFile;
+        GameEvents.SaveFile event = new GameEvents.SaveFile();
+        event.begin();
         try (BufferedReader reader = new BufferedReader((new FileReader(file)))) {
             String line = reader.readLine();
             if (!line.equals("Settings")) {
@@ -744,8 +1002,10 @@ public class GameGui {
             } else {
                 reader.readLine();
             }
+            commitSaveFileEvent(event, "check", file, true);
             return true;
         } catch (Exception ex) {
+            commitSaveFileEvent(event, "check", file, false);
             return false;
         }
     }
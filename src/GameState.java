@@ -0,0 +1,367 @@
+import java.util.Random;
+
+/**
+ * Game state without any user interface
+ * Follows the same rules and the same order of steps as GameGui, so it can be copied and played ahead
+ */
+public class GameState {
+    static final String[] OPERATORS = {"+", "-", "*", "/"};
+    // RESULTS[operator][arg1][arg2] is the digit stored in the selected button, shared with DifficultyEstimator
+    static final int[][][] RESULTS = new int[OPERATORS.length][10][10];
+
+    static {
+        for (int op = 0; op < OPERATORS.length; op++) {
+            for (int arg1 = 0; arg1 < 10; arg1++) {
+                for (int arg2 = 0; arg2 < 10; arg2++) {
+                    int result = 0;
+                    switch (OPERATORS[op]) {
+                        case "+" -> result = arg1 + arg2;
+                        case "-" -> result = arg1 - arg2;
+                        case "*" -> result = arg1 * arg2;
+                        case "/" -> result = arg2 == 0 ? 0 : arg1 / arg2;
+                    }
+                    RESULTS[op][arg1][arg2] = Math.abs(result % 10);
+                }
+            }
+        }
+    }
+
+    private final int rows, cols, targetValue;
+    private final int[][] values;
+    private final boolean[][] enabled;
+    private final String[] operators;
+    private final Random random;
+    private int selectedRow = -1, selectedCol = -1;
+    private int movesLeft, sum;
+    private String result;
+
+    /**
+     * Sets up a new game with random buttons and operators
+     * @param settings rows, columns, moves and target value of the game
+     * @param random source of button values and operators
+     */
+    public GameState(Settings settings, Random random) {
+        this(settings, -1, null, null, random);
+    }
+
+    /**
+     * Sets up game with state read from a file or arguments (-1, null, null) for new game
+     * @param settings rows, columns, moves and target value of the game
+     * @param newMovesLeft moves left when player saved to file, -1 for settings value
+     * @param newButtons values of the buttons row by row, null for random values
+     * @param newOperators operators in queue, null for random operators
+     * @param random source of button values and operators that were not given
+     */
+    public GameState(Settings settings, int newMovesLeft, int[] newButtons, String[] newOperators, Random random) {
+        this.rows = settings.getRows();
+        this.cols = settings.getCols();
+        this.targetValue = settings.getTargetVal();
+        this.random = random;
+        movesLeft = newMovesLeft == -1 ? settings.getMovesLeft() : newMovesLeft;
+
+        values = new int[rows][cols];
+        enabled = new boolean[rows][cols];
+        int newButtonCount = 0;
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                if (newButtons != null) {
+                    values[i][j] = newButtons[newButtonCount];
+                    newButtonCount++;
+                } else {
+                    values[i][j] = random.nextInt(9);
+                }
+                enabled[i][j] = true;
+                sum += values[i][j];
+            }
+        }
+
+        operators = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            if (newOperators != null && i < newOperators.length) {
+                operators[i] = newOperators[i];
+            } else {
+                operators[i] = getRandOperator();
+            }
+        }
+    }
+
+    /**
+     * Copies another game state, the copy shares the source of random operators
+     * @param other state to copy
+     */
+    public GameState(GameState other) {
+        rows = other.rows;
+        cols = other.cols;
+        targetValue = other.targetValue;
+        random = other.random;
+        values = new int[rows][cols];
+        enabled = new boolean[rows][cols];
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(other.values[i], 0, values[i], 0, cols);
+            System.arraycopy(other.enabled[i], 0, enabled[i], 0, cols);
+        }
+        operators = other.operators.clone();
+        selectedRow = other.selectedRow;
+        selectedCol = other.selectedCol;
+        movesLeft = other.movesLeft;
+        sum = other.sum;
+        result = other.result;
+    }
+
+    /**
+     * Calculates what a move stores in the selected button
+     * @param operator one of + - * / or empty string when there are no operators left
+     * @param arg1 value of the selected button
+     * @param arg2 value of the clicked button
+     * @return the rightmost digit of the result
+     */
+    public static int calculate(String operator, int arg1, int arg2) {
+        return switch (operator) {
+            case "+" -> RESULTS[0][arg1][arg2];
+            case "-" -> RESULTS[1][arg1][arg2];
+            case "*" -> RESULTS[2][arg1][arg2];
+            case "/" -> RESULTS[3][arg1][arg2];
+            default -> 0;
+        };
+    }
+
+    /**
+     * @param operator one of + - * /
+     * @return index of the operator in OPERATORS and RESULTS or -1 for anything else
+     */
+    static int operatorIndex(String operator) {
+        for (int i = 0; i < OPERATORS.length; i++) {
+            if (OPERATORS[i].equals(operator)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Clicks a button, same as clicking a button on the game screen
+     * @param row button's row
+     * @param col button's column
+     * @return false if the button is disabled or the game is over
+     */
+    public boolean click(int row, int col) {
+        if (isOver() || !enabled[row][col]) {
+            return false;
+        }
+        if (selectedRow == -1 && selectedCol == -1) { // on first button click
+            selectedRow = row;
+            selectedCol = col;
+            createAvailableButtonsCross();
+        } else { // all other buttons clicked after first one
+            int value = calculate(operators[0], values[selectedRow][selectedCol], values[row][col]);
+            sum += value - values[selectedRow][selectedCol];
+            values[selectedRow][selectedCol] = value;
+            updateOperators();
+            selectedRow = row;
+            selectedCol = col;
+            createAvailableButtonsCross();
+            moveDone();
+        }
+        return true;
+    }
+
+    /**
+     * Clicks a random available button
+     * @param random source of the choice
+     * @return row and column of the clicked button or null if the game is over
+     */
+    public int[] clickRandom(Random random) {
+        if (isOver()) {
+            return null;
+        }
+        int count = 0;
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                if (enabled[i][j]) {
+                    count++;
+                }
+            }
+        }
+        int choice = random.nextInt(count);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                if (enabled[i][j] && choice-- == 0) {
+                    click(i, j);
+                    return new int[]{i, j};
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Moves the operators up in queue after each move
+     */
+    private void updateOperators() {
+        for (int i = 0; i < operators.length; i++) {
+            if (movesLeft <= operators.length) { // there are fewer operators in queue than all labels
+                if (i < movesLeft - 2) {
+                    operators[i] = operators[i + 1];
+                } else if (i < movesLeft - 1) {
+                    if (i == operators.length - 1) {
+                        operators[i] = getRandOperator();
+                    } else {
+                        operators[i] = operators[i + 1];
+                    }
+                } else {
+                    operators[i] = "";
+                }
+            } else { // there are more operators in queue than labels
+                if (i < operators.length - 1) {
+                    operators[i] = operators[i + 1];
+                } else {
+                    operators[i] = getRandOperator();
+                }
+            }
+        }
+    }
+
+    /**
+     * Disables buttons that aren't in the same row or column as selected button
+     * Also disables all buttons with number 0 if current operator is /
+     */
+    private void createAvailableButtonsCross() {
+        int numOfAvailableButtons = 0;
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                if ((selectedRow == i && selectedCol == j) ||
+                    (operators[0].equals("/") && values[i][j] == 0)
+                ) {
+                    enabled[i][j] = false;
+                } else {
+                    enabled[i][j] = selectedRow == i || selectedCol == j;
+                    if (enabled[i][j]) {
+                        numOfAvailableButtons++;
+                    }
+                }
+            }
+        }
+        if (numOfAvailableButtons == 0) { // instant game over if player can't press any buttons
+            movesLeft = 0;
+            moveDone();
+        }
+    }
+
+    /**
+     * Decrements movesLeft and checks win/lose, keeps the first result like the post-game screen
+     */
+    private void moveDone() {
+        movesLeft--;
+        String text = null;
+        if (movesLeft <= 0 && sum != targetValue) {
+            text = "YOU LOST! YOU WERE " + Math.abs(targetValue - sum) + " POINT/S AWAY FROM TARGET NUMBER!";
+        } else if (sum == targetValue) {
+            text = "YOU WIN!";
+        }
+        if (result == null) {
+            result = text;
+        }
+    }
+
+    /**
+     * Returns a random operator
+     * @return a string with one of the following operators: + - * /
+     */
+    private String getRandOperator() {
+        return OPERATORS[random.nextInt(OPERATORS.length)];
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getTargetVal() {
+        return targetValue;
+    }
+
+    public int getValue(int row, int col) {
+        return values[row][col];
+    }
+
+    public boolean isEnabled(int row, int col) {
+        return enabled[row][col];
+    }
+
+    public int getSelectedRow() {
+        return selectedRow;
+    }
+
+    public int getSelectedCol() {
+        return selectedCol;
+    }
+
+    public int getMovesLeft() {
+        return movesLeft;
+    }
+
+    public int getSum() {
+        return sum;
+    }
+
+    /**
+     * @param i position in queue, 0 is the operator used next
+     * @return operator or empty string when the queue is shorter
+     */
+    public String getOperator(int i) {
+        return operators[i];
+    }
+
+    public int getNumOfOperators() {
+        return operators.length;
+    }
+
+    public boolean isOver() {
+        return result != null;
+    }
+
+    /**
+     * @return text of the post-game screen or null while the game is running
+     */
+    public String getResult() {
+        return result;
+    }
+
+    /**
+     * Generates a string with values of all buttons ready to write to file
+     * @return string with all values separated with pipe character |
+     */
+    public String fileFriendlyButtons() {
+        StringBuilder str = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                str.append(values[i][j]);
+                if (i + 1 != rows || j + 1 != cols) {
+                    str.append("|");
+                }
+            }
+        }
+        return str.toString();
+    }
+
+    /**
+     * Generates a string with all operators in queue ready to write to file
+     * @return string with all operators separated with pipe character |
+     */
+    public String fileFriendlyOperators() {
+        StringBuilder str = new StringBuilder();
+        for (int i = 0; i < operators.length; i++) {
+            if (i == movesLeft) {
+                break;
+            }
+            str.append(operators[i]);
+            if (i + 1 != operators.length && i + 1 != movesLeft) {
+                str.append("|");
+            }
+        }
+        return str.toString();
+    }
+}
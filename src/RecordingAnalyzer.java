@@ -0,0 +1,176 @@
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Summarizes a Flight Recorder recording of the game per game
+ * Usage: java RecordingAnalyzer game.jfr
+ */
+public class RecordingAnalyzer {
+
+    /**
+     * Everything recorded during one game, game 0 is the main menu before the first game
+     */
+    private static class GameSummary {
+        RecordedEvent start, end;
+        RecordedEvent slowestMove;
+        int moves, scans, fileOperations, imageLoads;
+        long fileBytes;
+        Duration moveTime = Duration.ZERO, scanTime = Duration.ZERO, fileTime = Duration.ZERO, imageTime = Duration.ZERO;
+        Instant first, last;
+    }
+
+    /**
+     * Time when the game's threads were stopped
+     */
+    private static class Pause {
+        final Instant start, end;
+
+        Pause(Instant start, Instant end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<Integer, GameSummary> games = new TreeMap<>();
+        List<Pause> pauses = new ArrayList<>(), safepoints = new ArrayList<>();
+        Map<Long, RecordedEvent> safepointBegins = new HashMap<>();
+        List<RecordedEvent> safepointEnds = new ArrayList<>();
+
+        for (RecordedEvent event : RecordingFile.readAllEvents(Path.of(args[0]))) {
+            String name = event.getEventType().getName();
+            // jdk.GarbageCollection also covers concurrent phases, only pause phases stop the game's threads
+            if (name.equals("jdk.GCPhasePause")) {
+                pauses.add(new Pause(event.getStartTime(), event.getEndTime()));
+                continue;
+            }
+            // jdk.SafepointBegin only lasts until all threads reached the safepoint, the pause goes on
+            // until the matching jdk.SafepointEnd; GC pauses run in safepoints too, so these are counted apart
+            if (name.equals("jdk.SafepointBegin")) {
+                safepointBegins.put(event.getLong("safepointId"), event);
+                continue;
+            }
+            if (name.equals("jdk.SafepointEnd")) {
+                safepointEnds.add(event);
+                continue;
+            }
+            if (!name.startsWith("weirdmath.")) {
+                continue;
+            }
+            GameSummary game = games.computeIfAbsent(event.getInt("game"), k -> new GameSummary());
+            if (game.first == null || event.getStartTime().isBefore(game.first)) {
+                game.first = event.getStartTime();
+            }
+            if (game.last == null || event.getEndTime().isAfter(game.last)) {
+                game.last = event.getEndTime();
+            }
+            switch (name) {
+                case "weirdmath.GameStart" -> game.start = event;
+                case "weirdmath.GameEnd" -> game.end = event;
+                case "weirdmath.Move" -> {
+                    game.moves++;
+                    game.moveTime = game.moveTime.plus(event.getDuration());
+                    if (game.slowestMove == null || event.getDuration().compareTo(game.slowestMove.getDuration()) > 0) {
+                        game.slowestMove = event;
+                    }
+                }
+                case "weirdmath.CrossScan" -> {
+                    game.scans++;
+                    game.scanTime = game.scanTime.plus(event.getDuration());
+                }
+                case "weirdmath.SaveFile" -> {
+                    game.fileOperations++;
+                    game.fileBytes += event.getLong("bytes");
+                    game.fileTime = game.fileTime.plus(event.getDuration());
+                }
+                case "weirdmath.ImageLoad" -> {
+                    game.imageLoads++;
+                    game.imageTime = game.imageTime.plus(event.getDuration());
+                }
+            }
+        }
+
+        for (RecordedEvent end : safepointEnds) {
+            RecordedEvent begin = safepointBegins.get(end.getLong("safepointId"));
+            if (begin != null) { // the begin can be in a chunk that was not kept
+                safepoints.add(new Pause(begin.getStartTime(), end.getEndTime()));
+            }
+        }
+
+        for (Map.Entry<Integer, GameSummary> entry : games.entrySet()) {
+            GameSummary game = entry.getValue();
+            if (entry.getKey() == 0) {
+                System.out.println("Main menu");
+            } else if (game.start != null) {
+                System.out.printf("Game %d: %dx%d, %d moves, target %d%s%n", entry.getKey(),
+                        game.start.getInt("rows"), game.start.getInt("cols"), game.start.getInt("moves"),
+                        game.start.getInt("targetValue"), game.start.getBoolean("loaded") ? ", loaded from file" : "");
+            } else {
+                System.out.printf("Game %d%n", entry.getKey());
+            }
+            if (game.end != null) {
+                System.out.printf("  %s with sum %d, %d moves left%n", game.end.getBoolean("won") ? "Won" : "Lost",
+                        game.end.getInt("sum"), game.end.getInt("movesLeft"));
+            }
+            if (game.moves > 0) {
+                Instant from = game.slowestMove.getStartTime(), to = game.slowestMove.getEndTime();
+                List<Pause> moveSafepoints = overlapping(safepoints, from, to);
+                System.out.printf("  moves: %d, average %s, slowest %s (%s at %d,%d) with %d GC pause/s"
+                                + " and %d safepoint/s (%s stopped) during it%n",
+                        game.moves, millis(game.moveTime.dividedBy(game.moves)), millis(game.slowestMove.getDuration()),
+                        game.slowestMove.getString("operator"), game.slowestMove.getInt("row"),
+                        game.slowestMove.getInt("col"), overlapping(pauses, from, to).size(),
+                        moveSafepoints.size(), millis(stopped(moveSafepoints)));
+            }
+            if (game.scans > 0) {
+                System.out.printf("  cross scans: %d, average %s%n", game.scans, millis(game.scanTime.dividedBy(game.scans)));
+            }
+            if (game.fileOperations > 0) {
+                System.out.printf("  save file: %d operation/s, %d bytes, %s%n",
+                        game.fileOperations, game.fileBytes, millis(game.fileTime));
+            }
+            if (game.imageLoads > 0) {
+                System.out.printf("  image loads: %d, %s%n", game.imageLoads, millis(game.imageTime));
+            }
+            if (game.first != null) {
+                List<Pause> gameSafepoints = overlapping(safepoints, game.first, game.last);
+                System.out.printf("  GC pauses during the game: %d, safepoints: %d, %s stopped, longest %s%n",
+                        overlapping(pauses, game.first, game.last).size(), gameSafepoints.size(),
+                        millis(stopped(gameSafepoints)), millis(longest(gameSafepoints)));
+            }
+        }
+    }
+
+    private static List<Pause> overlapping(List<Pause> pauses, Instant from, Instant to) {
+        return pauses.stream()
+                .filter(pause -> !pause.end.isBefore(from) && !pause.start.isAfter(to))
+                .toList();
+    }
+
+    private static Duration stopped(List<Pause> pauses) {
+        return pauses.stream()
+                .map(pause -> Duration.between(pause.start, pause.end))
+                .reduce(Duration.ZERO, Duration::plus);
+    }
+
+    private static Duration longest(List<Pause> pauses) {
+        return pauses.stream()
+                .map(pause -> Duration.between(pause.start, pause.end))
+                .max(Duration::compareTo)
+                .orElse(Duration.ZERO);
+    }
+
+    private static String millis(Duration duration) {
+        return String.format("%.3f ms", duration.toNanos() / 1e6);
+    }
+}
@@ -0,0 +1,347 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Draws game states to images without a window, works with -Djava.awt.headless=true
+ * Shows the same things as the game screen: target value, moves left, buttons, operators and current sum
+ */
+public class ReplayRenderer {
+    private static final int CELL = 48, GAP = 4, BORDER = 10, TOP = 36, BOTTOM = 30, OPERATORS_WIDTH = 50;
+    private static final Color BACKGROUND = Color.lightGray;
+    private static final Color BUTTON = new Color(0xe6e6e6), DISABLED_BUTTON = new Color(0xcccccc);
+    private static final Font LABEL_FONT = new Font("Arial", Font.PLAIN, 13);
+    private static final Font BUTTON_FONT = new Font("Arial", Font.BOLD, 16);
+    private static final Font NEXT_OPERATOR_FONT = new Font("Arial", Font.BOLD, 22);
+
+    // every worker thread keeps reusing its own image while the board size stays the same
+    private final ThreadLocal<BufferedImage> images = new ThreadLocal<>();
+    private static final ThreadLocal<PngEncoder> encoders = ThreadLocal.withInitial(PngEncoder::new);
+
+    public static int width(int cols) {
+        return 2 * BORDER + cols * (CELL + GAP) + OPERATORS_WIDTH;
+    }
+
+    public static int height(int rows) {
+        return TOP + 2 * BORDER + rows * (CELL + GAP) + BOTTOM;
+    }
+
+    /**
+     * Draws a game state
+     * @param state state to draw
+     * @param g graphics of an image at least width(cols) x height(rows) big
+     */
+    public static void draw(GameState state, Graphics2D g) {
+        int rows = state.getRows(), cols = state.getCols();
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setColor(BACKGROUND);
+        g.fillRect(0, 0, width(cols), height(rows));
+
+        // top panel
+        g.setColor(Color.BLACK);
+        g.setFont(LABEL_FONT);
+        drawCentered(g, "Target value: " + state.getTargetVal(), 0, 0, width(cols), TOP);
+        String moves = "Moves left: " + state.getMovesLeft();
+        g.drawString(moves, width(cols) - BORDER - g.getFontMetrics().stringWidth(moves), TOP / 2 + 5);
+
+        // buttons
+        g.setFont(BUTTON_FONT);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                int x = BORDER + j * (CELL + GAP), y = TOP + BORDER + i * (CELL + GAP);
+                boolean enabled = state.isEnabled(i, j);
+                g.setColor(enabled ? BUTTON : DISABLED_BUTTON);
+                g.fillRoundRect(x, y, CELL, CELL, 8, 8);
+                g.setColor(Color.GRAY);
+                g.drawRoundRect(x, y, CELL, CELL, 8, 8);
+                g.setColor(enabled ? Color.BLACK : Color.GRAY);
+                drawCentered(g, state.getValue(i, j) + "", x, y, CELL, CELL);
+            }
+        }
+
+        // next operators, only as many as there are moves left
+        int x = BORDER + cols * (CELL + GAP) + 5;
+        for (int i = 0; i < rows && i < state.getMovesLeft(); i++) {
+            int y = TOP + BORDER + i * (CELL + GAP);
+            g.setColor(Color.BLACK);
+            if (i == 0) {
+                g.setFont(NEXT_OPERATOR_FONT);
+                g.drawString(state.getOperator(i), x, y + CELL / 2 + 8);
+            } else {
+                g.setFont(LABEL_FONT);
+                drawCentered(g, state.getOperator(i), x, y, OPERATORS_WIDTH - 10, CELL);
+            }
+        }
+
+        // current sum
+        g.setFont(LABEL_FONT);
+        g.setColor(Color.BLACK);
+        drawCentered(g, "Current sum: " + state.getSum(), 0, height(rows) - BOTTOM, width(cols), BOTTOM);
+    }
+
+    private static void drawCentered(Graphics2D g, String text, int x, int y, int width, int height) {
+        FontMetrics metrics = g.getFontMetrics();
+        g.drawString(text, x + (width - metrics.stringWidth(text)) / 2,
+                y + (height - metrics.getHeight()) / 2 + metrics.getAscent());
+    }
+
+    /**
+     * Draws a game state into this thread's image, the image is overwritten by the next call
+     * @param state state to draw
+     * @return image of the state
+     */
+    public BufferedImage render(GameState state) {
+        int width = width(state.getCols()), height = height(state.getRows());
+        BufferedImage image = images.get();
+        if (image == null || image.getWidth() != width || image.getHeight() != height) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            images.set(image);
+        }
+        Graphics2D g = image.createGraphics();
+        draw(state, g);
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * Writes frames to PNG files named frame-00000.png, frame-00001.png ...
+     * Every worker gets its own range of frames
+     * @param frames states of a recorded or simulated game
+     * @param directory where the files are written
+     * @param threads number of workers
+     * @return number of frames written
+     */
+    public long renderFrames(List<GameState> frames, File directory, int threads) throws IOException {
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Object>> ranges = new ArrayList<>();
+            int perWorker = (frames.size() + threads - 1) / threads;
+            for (int from = 0; from < frames.size(); from += perWorker) {
+                int start = from, end = Math.min(frames.size(), from + perWorker);
+                ranges.add(workers.submit(() -> {
+                    for (int i = start; i < end; i++) {
+                        write(render(frames.get(i)), new File(directory, String.format("frame-%05d.png", i)));
+                    }
+                    return null;
+                }));
+            }
+            waitFor(ranges);
+            return frames.size();
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    /**
+     * Plays random games and writes every state to PNG files named game-0000-frame-000.png ...
+     * Every worker plays and draws whole games
+     * @param settings settings of all games
+     * @param firstSeed seed of the first game, the next game gets the next seed
+     * @param games number of games
+     * @param directory where the files are written
+     * @param threads number of workers
+     * @return number of frames written
+     */
+    public long renderRandomGames(Settings settings, long firstSeed, int games, File directory, int threads)
+            throws IOException {
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        AtomicLong count = new AtomicLong();
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int game = 0; game < games; game++) {
+                int number = game;
+                results.add(workers.submit(() -> {
+                    List<GameState> frames = randomGame(settings, firstSeed + number);
+                    for (int i = 0; i < frames.size(); i++) {
+                        write(render(frames.get(i)),
+                                new File(directory, String.format("game-%04d-frame-%03d.png", number, i)));
+                    }
+                    count.addAndGet(frames.size());
+                    return null;
+                }));
+            }
+            waitFor(results);
+            return count.get();
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    /**
+     * Puts smaller copies of the frames next to each other
+     * @param frames states to show, all with the same number of rows and columns
+     * @param columns number of frames in a row
+     * @param scale size of each frame, 1 for full size
+     * @return contact sheet image
+     */
+    public static BufferedImage contactSheet(List<GameState> frames, int columns, double scale) {
+        int frameWidth = (int) (width(frames.get(0).getCols()) * scale);
+        int frameHeight = (int) (height(frames.get(0).getRows()) * scale);
+        int sheetRows = (frames.size() + columns - 1) / columns;
+        BufferedImage sheet = new BufferedImage(columns * frameWidth, sheetRows * frameHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = sheet.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, sheet.getWidth(), sheet.getHeight());
+        for (int i = 0; i < frames.size(); i++) {
+            Graphics2D frame = (Graphics2D) g.create((i % columns) * frameWidth, (i / columns) * frameHeight,
+                    frameWidth, frameHeight);
+            frame.scale(scale, scale);
+            draw(frames.get(i), frame);
+            frame.dispose();
+        }
+        g.dispose();
+        return sheet;
+    }
+
+    /**
+     * Plays a game with random clicks
+     * @param settings settings of the game
+     * @param seed seed of buttons, operators and clicks
+     * @return state before the first click and after every click
+     */
+    public static List<GameState> randomGame(Settings settings, long seed) {
+        Random random = new Random(seed);
+        GameState state = new GameState(settings, random);
+        List<GameState> frames = new ArrayList<>();
+        frames.add(new GameState(state));
+        while (state.clickRandom(random) != null) {
+            frames.add(new GameState(state));
+        }
+        return frames;
+    }
+
+    private static void write(BufferedImage image, File file) throws IOException {
+        encoders.get().write(image, file);
+    }
+
+    /**
+     * Minimal PNG writer for TYPE_INT_RGB images, much faster than ImageIO because it uses the fastest compression
+     * and keeps its buffers for the next image
+     * source: https://www.w3.org/TR/png/
+     */
+    private static class PngEncoder {
+        private static final byte[] SIGNATURE = {(byte) 137, 'P', 'N', 'G', '\r', '\n', 26, '\n'};
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final CRC32 crc = new CRC32();
+        private byte[] raw = new byte[0], compressed = new byte[0];
+
+        void write(BufferedImage image, File file) throws IOException {
+            int width = image.getWidth(), height = image.getHeight();
+            int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            int size = height * (1 + 3 * width);
+            if (raw.length < size) {
+                raw = new byte[size];
+                compressed = new byte[size / 4];
+            }
+
+            // every row uses filter "up": difference from the row above, mostly zeros on this picture
+            int p = 0;
+            for (int y = 0; y < height; y++) {
+                raw[p++] = 2;
+                for (int x = 0; x < width; x++) {
+                    int color = pixels[y * width + x];
+                    int above = y == 0 ? 0 : pixels[(y - 1) * width + x];
+                    raw[p++] = (byte) ((color >> 16) - (above >> 16));
+                    raw[p++] = (byte) ((color >> 8) - (above >> 8));
+                    raw[p++] = (byte) (color - above);
+                }
+            }
+
+            deflater.reset();
+            deflater.setInput(raw, 0, size);
+            deflater.finish();
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == compressed.length) {
+                    compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                }
+                length += deflater.deflate(compressed, length, compressed.length - length);
+            }
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+                out.write(SIGNATURE);
+                byte[] header = new byte[13];
+                header[0] = (byte) (width >>> 24);
+                header[1] = (byte) (width >>> 16);
+                header[2] = (byte) (width >>> 8);
+                header[3] = (byte) width;
+                header[4] = (byte) (height >>> 24);
+                header[5] = (byte) (height >>> 16);
+                header[6] = (byte) (height >>> 8);
+                header[7] = (byte) height;
+                header[8] = 8; // bits per channel
+                header[9] = 2; // RGB
+                chunk(out, "IHDR", header, header.length);
+                chunk(out, "IDAT", compressed, length);
+                chunk(out, "IEND", new byte[0], 0);
+            }
+        }
+
+        private void chunk(DataOutputStream out, String type, byte[] data, int length) throws IOException {
+            byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+            out.writeInt(length);
+            out.write(typeBytes);
+            out.write(data, 0, length);
+            crc.reset();
+            crc.update(typeBytes);
+            crc.update(data, 0, length);
+            out.writeInt((int) crc.getValue());
+        }
+    }
+
+    private static void waitFor(List<Future<Object>> results) throws IOException {
+        try {
+            for (Future<Object> result : results) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Renders random games of the Medium preset to a directory and prints frames per second
+     * Usage: java -Djava.awt.headless=true ReplayRenderer directory [games] [threads]
+     */
+    public static void main(String[] args) throws IOException {
+        File directory = new File(args.length > 0 ? args[0] : "replays");
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Can't create " + directory);
+        }
+
+        Settings settings = new Settings();
+        settings.setNumOfRows(6);
+        settings.setNumOfCols(6);
+        settings.setTargetValue(150);
+        settings.setMovesLeft(50);
+
+        long start = System.nanoTime();
+        long frames = new ReplayRenderer().renderRandomGames(settings, 0, games, directory, threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d frames of %d games in %.2f s, %.0f frames/s%n", frames, games, seconds, frames / seconds);
+
+        write(contactSheet(randomGame(settings, 0), 10, 0.5), new File(directory, "game-0000-sheet.png"));
+    }
+}
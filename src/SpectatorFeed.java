@@ -0,0 +1,573 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Live game state for spectators (dashboards, recorders, overlays)
+ * The game writes every change as a fixed-size delta into a ring buffer, any number of readers follow it
+ * The writer never waits for readers, a reader that falls too far behind skips ahead and reloads the snapshot
+ * The buffer can be a memory-mapped file so readers can run in other processes
+ * A writer that is started again on the same file increases the epoch, readers notice it and reload the snapshot
+ */
+public class SpectatorFeed implements Closeable {
+    public static final byte START = 1, CELL = 2, OPERATOR = 3, SELECT = 4, MOVE = 5, END = 6;
+
+    private static final int MAGIC = 0x4d4f524c, VERSION = 2;
+    private static final int DELTA_SIZE = 32, MAX_BUTTONS = 100, MAX_OPERATORS = 10;
+
+    // header: magic, version, number of slots, cursor (last published delta), snapshot version, epoch
+    private static final int CURSOR = 16, SNAPSHOT_VERSION = 24, EPOCH = 32;
+    // snapshot: state after delta number lastSeq, rewritten after every delta
+    private static final int SNAPSHOT = 64, SNAPSHOT_SIZE = 160;
+    private static final int SLOTS = SNAPSHOT + SNAPSHOT_SIZE;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final ByteBuffer buffer;
+    private final RandomAccessFile file;
+    private final int slots, mask;
+    private final boolean writer;
+    private final Delta delta = new Delta();
+    private final Snapshot snapshot = new Snapshot();
+    private long cursor;
+
+    /**
+     * Creates a feed in memory for readers in the same program
+     * @param slots number of deltas kept for readers, power of two
+     */
+    public SpectatorFeed(int slots) {
+        this(ByteBuffer.allocateDirect(SLOTS + slots * DELTA_SIZE), null, slots, true);
+    }
+
+    private SpectatorFeed(ByteBuffer buffer, RandomAccessFile file, int slots, boolean writer) {
+        if (Integer.bitCount(slots) != 1) {
+            throw new IllegalArgumentException("Number of slots must be a power of two: " + slots);
+        }
+        this.buffer = buffer.order(ByteOrder.nativeOrder());
+        this.file = file;
+        this.slots = slots;
+        this.mask = slots - 1;
+        this.writer = writer;
+        if (writer) {
+            reset();
+        }
+    }
+
+    /**
+     * Starts the feed from delta 1 with an empty snapshot
+     * On a file that already has a feed the epoch is increased and the snapshot version keeps growing,
+     * everything is changed inside the snapshot's seqlock so readers see the old or the new feed, never a mix
+     */
+    private void reset() {
+        boolean restart = buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION;
+        long version = restart ? (long) LONGS.getOpaque(buffer, SNAPSHOT_VERSION) & ~1L : 0;
+        long epoch = restart ? (long) LONGS.getOpaque(buffer, EPOCH) + 1 : 1;
+        LONGS.setOpaque(buffer, SNAPSHOT_VERSION, version + 1);
+        VarHandle.storeStoreFence();
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, slots);
+        LONGS.setRelease(buffer, EPOCH, epoch);
+        LONGS.setRelease(buffer, CURSOR, 0L);
+        snapshot.write(buffer, SNAPSHOT);
+        LONGS.setRelease(buffer, SNAPSHOT_VERSION, version + 2);
+    }
+
+    /**
+     * Creates a feed in a memory-mapped file, other programs can read it with open()
+     * The file is never made shorter, readers of an existing feed have all of it mapped
+     * @param path file to create or overwrite, readers of an existing feed in it start over
+     * @param slots number of deltas kept for readers, power of two, the same as an existing feed in the file
+     * @return feed to write to
+     */
+    public static SpectatorFeed create(File path, int slots) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(path, "rw");
+        long length = SLOTS + (long) slots * DELTA_SIZE;
+        if (file.length() >= SLOTS) {
+            ByteBuffer header = ByteBuffer.allocate(12).order(ByteOrder.nativeOrder());
+            file.getChannel().read(header, 0);
+            if (header.getInt(0) == MAGIC && header.getInt(4) == VERSION && header.getInt(8) != slots) {
+                file.close();
+                throw new IOException("Feed in " + path + " has " + header.getInt(8) + " slots, not " + slots);
+            }
+        }
+        if (file.length() < length) {
+            file.setLength(length);
+        }
+        MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+        return new SpectatorFeed(buffer, file, slots, true);
+    }
+
+    /**
+     * Opens a feed written by another program
+     * @param path file given to create()
+     * @return feed to read from
+     */
+    public static SpectatorFeed open(File path) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(path, "r");
+        MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+        buffer.order(ByteOrder.nativeOrder());
+        if (file.length() < SLOTS || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                || Integer.bitCount(buffer.getInt(8)) != 1
+                || SLOTS + (long) buffer.getInt(8) * DELTA_SIZE > file.length()) {
+            file.close();
+            throw new IOException("Wrong file!");
+        }
+        return new SpectatorFeed(buffer, file, buffer.getInt(8), false);
+    }
+
+    /**
+     * New game was started, followed by CELL and OPERATOR deltas for all buttons and operators
+     */
+    public void start(int game, int rows, int cols, int targetValue, int movesLeft) {
+        delta.clear(game, START);
+        delta.row = rows;
+        delta.col = cols;
+        delta.sum = targetValue;
+        delta.movesLeft = movesLeft;
+        publish();
+    }
+
+    public void cell(int game, int row, int col, int value) {
+        delta.clear(game, CELL);
+        delta.row = row;
+        delta.col = col;
+        delta.value = value;
+        publish();
+    }
+
+    /**
+     * Operator added to the end of the queue
+     */
+    public void operator(int game, String operator) {
+        delta.clear(game, OPERATOR);
+        delta.operator = toByte(operator);
+        publish();
+    }
+
+    /**
+     * First button of the game was selected
+     */
+    public void select(int game, int row, int col) {
+        delta.clear(game, SELECT);
+        delta.selectedRow = row;
+        delta.selectedCol = col;
+        publish();
+    }
+
+    /**
+     * A move was played
+     * @param row row of the changed button
+     * @param col column of the changed button
+     * @param value new value of the changed button
+     * @param selectedRow row of the newly selected button
+     * @param selectedCol column of the newly selected button
+     * @param operator operator used in the move
+     * @param nextOperator operator added to the end of the queue or null
+     * @param sum current sum after the move
+     * @param movesLeft moves left after the move
+     */
+    public void move(int game, int row, int col, int value, int selectedRow, int selectedCol,
+                     String operator, String nextOperator, int sum, int movesLeft) {
+        delta.clear(game, MOVE);
+        delta.row = row;
+        delta.col = col;
+        delta.value = value;
+        delta.selectedRow = selectedRow;
+        delta.selectedCol = selectedCol;
+        delta.operator = toByte(operator);
+        delta.nextOperator = toByte(nextOperator);
+        delta.sum = sum;
+        delta.movesLeft = movesLeft;
+        publish();
+    }
+
+    public void end(int game, boolean won, int sum, int movesLeft) {
+        delta.clear(game, END);
+        delta.value = won ? 1 : 0;
+        delta.sum = sum;
+        delta.movesLeft = movesLeft;
+        publish();
+    }
+
+    private static byte toByte(String operator) {
+        return operator == null || operator.isEmpty() ? 0 : (byte) operator.charAt(0);
+    }
+
+    /**
+     * Writes the delta to its slot, then moves the cursor and updates the snapshot
+     * The slot's sequence number is 0 while it is being written, so readers can tell it was overwritten
+     */
+    private void publish() {
+        if (!writer) {
+            throw new IllegalStateException("Feed is opened for reading");
+        }
+        long seq = ++cursor;
+        int offset = SLOTS + (int) ((seq - 1) & mask) * DELTA_SIZE;
+        delta.seq = seq;
+        delta.time = System.nanoTime();
+
+        LONGS.setOpaque(buffer, offset, 0L);
+        VarHandle.storeStoreFence();
+        delta.write(buffer, offset);
+        LONGS.setRelease(buffer, offset, seq);
+        LONGS.setRelease(buffer, CURSOR, seq);
+
+        snapshot.apply(delta);
+        writeSnapshot();
+    }
+
+    private void writeSnapshot() {
+        long version = (long) LONGS.getOpaque(buffer, SNAPSHOT_VERSION);
+        LONGS.setOpaque(buffer, SNAPSHOT_VERSION, version + 1); // odd while writing
+        VarHandle.storeStoreFence();
+        snapshot.write(buffer, SNAPSHOT);
+        LONGS.setRelease(buffer, SNAPSHOT_VERSION, version + 2);
+    }
+
+    /**
+     * @return number of the last published delta
+     */
+    public long getCursor() {
+        return (long) LONGS.getAcquire(buffer, CURSOR);
+    }
+
+    /**
+     * Creates a reader that starts with the current snapshot
+     * @param state filled with the current snapshot
+     * @return reader of deltas that come after the snapshot
+     */
+    public Reader join(Snapshot state) {
+        Reader reader = new Reader();
+        reader.resync(state);
+        return reader;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (file != null) {
+            file.close();
+        }
+    }
+
+    /**
+     * Follows the feed from one thread, readers don't affect the writer or each other
+     */
+    public class Reader {
+        private long next = 1, missed, epoch;
+        private boolean restarted;
+
+        /**
+         * Reads the next delta
+         * @param into filled with the delta
+         * @return false if there is no new delta, this reader fell behind and deltas were lost
+         * or the writer was started again
+         */
+        public boolean poll(Delta into) {
+            if ((long) LONGS.getAcquire(buffer, EPOCH) != epoch) {
+                restarted = true;
+                return false;
+            }
+            long published = (long) LONGS.getAcquire(buffer, CURSOR);
+            if (next > published) {
+                return false;
+            }
+            if (published - next >= slots) {
+                lost(published - slots + 1);
+                return false;
+            }
+            int offset = SLOTS + (int) ((next - 1) & mask) * DELTA_SIZE;
+            long before = (long) LONGS.getAcquire(buffer, offset);
+            into.read(buffer, offset);
+            VarHandle.loadLoadFence();
+            long after = (long) LONGS.getAcquire(buffer, offset);
+            if (before != next || after != next) { // overwritten while reading
+                lost(next + 1);
+                return false;
+            }
+            if ((long) LONGS.getAcquire(buffer, EPOCH) != epoch) { // the slot belongs to a new feed
+                restarted = true;
+                return false;
+            }
+            into.seq = next;
+            next++;
+            return true;
+        }
+
+        /**
+         * Applies all new deltas to the state, reloads the snapshot if deltas were lost or the writer was started again
+         * @param state state returned by join()
+         * @return number of deltas applied
+         */
+        public int update(Snapshot state) {
+            Delta read = new Delta();
+            int count = 0;
+            long missedBefore = missed;
+            while (poll(read)) {
+                state.apply(read);
+                count++;
+            }
+            if (missed != missedBefore || restarted) {
+                resync(state);
+            }
+            return count;
+        }
+
+        private void lost(long from) {
+            missed += from - next;
+            next = from;
+        }
+
+        /**
+         * Reads a consistent copy of the snapshot and epoch and continues after it
+         * @throws IllegalStateException if the writer was started again with a different number of slots
+         */
+        private void resync(Snapshot state) {
+            while (true) {
+                long version = (long) LONGS.getAcquire(buffer, SNAPSHOT_VERSION);
+                if ((version & 1) == 0) {
+                    long newEpoch = (long) LONGS.getAcquire(buffer, EPOCH);
+                    int newSlots = buffer.getInt(8);
+                    state.read(buffer, SNAPSHOT);
+                    VarHandle.loadLoadFence();
+                    if ((long) LONGS.getAcquire(buffer, SNAPSHOT_VERSION) == version) {
+                        if (newSlots != slots) {
+                            throw new IllegalStateException("Feed was created again with " + newSlots + " slots");
+                        }
+                        epoch = newEpoch;
+                        restarted = false;
+                        next = state.lastSeq + 1;
+                        return;
+                    }
+                }
+                Thread.onSpinWait();
+            }
+        }
+
+        /**
+         * @return true if the writer was started again and the reader has to join again
+         */
+        public boolean isRestarted() {
+            return restarted;
+        }
+
+        /**
+         * @return number of deltas this reader skipped because it was too slow
+         */
+        public long getMissed() {
+            return missed;
+        }
+    }
+
+    /**
+     * One change of the game, see the methods of SpectatorFeed for meaning of the fields
+     */
+    public static class Delta {
+        public long seq, time;
+        public int game, type, row, col, value, selectedRow, selectedCol, sum, movesLeft;
+        public byte operator, nextOperator;
+
+        private void clear(int game, byte type) {
+            this.game = game;
+            this.type = type;
+            row = col = value = selectedRow = selectedCol = sum = movesLeft = 0;
+            operator = nextOperator = 0;
+        }
+
+        private void write(ByteBuffer buffer, int offset) {
+            buffer.putLong(offset + 8, time);
+            buffer.putInt(offset + 16, game);
+            buffer.put(offset + 20, (byte) type);
+            buffer.put(offset + 21, (byte) row);
+            buffer.put(offset + 22, (byte) col);
+            buffer.put(offset + 23, (byte) value);
+            buffer.put(offset + 24, (byte) selectedRow);
+            buffer.put(offset + 25, (byte) selectedCol);
+            buffer.put(offset + 26, operator);
+            buffer.put(offset + 27, nextOperator);
+            buffer.putShort(offset + 28, (short) sum);
+            buffer.putShort(offset + 30, (short) movesLeft);
+        }
+
+        private void read(ByteBuffer buffer, int offset) {
+            time = buffer.getLong(offset + 8);
+            game = buffer.getInt(offset + 16);
+            type = buffer.get(offset + 20);
+            row = buffer.get(offset + 21);
+            col = buffer.get(offset + 22);
+            value = buffer.get(offset + 23);
+            selectedRow = buffer.get(offset + 24);
+            selectedCol = buffer.get(offset + 25);
+            operator = buffer.get(offset + 26);
+            nextOperator = buffer.get(offset + 27);
+            sum = buffer.getShort(offset + 28);
+            movesLeft = buffer.getShort(offset + 30);
+        }
+
+        @Override
+        public String toString() {
+            return switch (type) {
+                case START -> "#" + seq + " game " + game + " start " + row + "x" + col
+                        + " target " + sum + " moves " + movesLeft;
+                case CELL -> "#" + seq + " game " + game + " button " + row + "," + col + " = " + value;
+                case OPERATOR -> "#" + seq + " game " + game + " operator " + (char) operator;
+                case SELECT -> "#" + seq + " game " + game + " select " + selectedRow + "," + selectedCol;
+                case MOVE -> "#" + seq + " game " + game + " move " + (char) operator + " button " + row + "," + col
+                        + " = " + value + " select " + selectedRow + "," + selectedCol
+                        + (nextOperator != 0 ? " next " + (char) nextOperator : "")
+                        + " sum " + sum + " moves " + movesLeft;
+                case END -> "#" + seq + " game " + game + (value == 1 ? " won" : " lost") + " sum " + sum;
+                default -> "#" + seq + " unknown delta " + type;
+            };
+        }
+    }
+
+    /**
+     * Whole state of the current game, readers keep it up to date with apply()
+     */
+    public static class Snapshot {
+        public long lastSeq;
+        public int game, rows, cols, targetValue, movesLeft, sum, selectedRow = -1, selectedCol = -1;
+        /** 0 while playing, 1 won, 2 lost */
+        public int result;
+        public final byte[] values = new byte[MAX_BUTTONS];
+        public final byte[] operators = new byte[MAX_OPERATORS];
+        public int numOfOperators;
+
+        /**
+         * Changes the state as described by the delta
+         * @param delta next delta after lastSeq
+         */
+        public void apply(Delta delta) {
+            lastSeq = delta.seq;
+            switch (delta.type) {
+                case START -> {
+                    game = delta.game;
+                    rows = delta.row;
+                    cols = delta.col;
+                    targetValue = delta.sum;
+                    movesLeft = delta.movesLeft;
+                    sum = 0;
+                    selectedRow = selectedCol = -1;
+                    result = 0;
+                    numOfOperators = 0;
+                    Arrays.fill(values, (byte) 0);
+                }
+                case CELL -> {
+                    sum += delta.value - values[delta.row * cols + delta.col];
+                    values[delta.row * cols + delta.col] = (byte) delta.value;
+                }
+                case OPERATOR -> {
+                    if (numOfOperators < MAX_OPERATORS) {
+                        operators[numOfOperators++] = delta.operator;
+                    }
+                }
+                case SELECT -> {
+                    selectedRow = delta.selectedRow;
+                    selectedCol = delta.selectedCol;
+                }
+                case MOVE -> {
+                    values[delta.row * cols + delta.col] = (byte) delta.value;
+                    selectedRow = delta.selectedRow;
+                    selectedCol = delta.selectedCol;
+                    sum = delta.sum;
+                    movesLeft = delta.movesLeft;
+                    if (numOfOperators > 0) {
+                        System.arraycopy(operators, 1, operators, 0, numOfOperators - 1);
+                        numOfOperators--;
+                    }
+                    if (delta.nextOperator != 0 && numOfOperators < MAX_OPERATORS) {
+                        operators[numOfOperators++] = delta.nextOperator;
+                    }
+                }
+                case END -> {
+                    result = delta.value == 1 ? 1 : 2;
+                    sum = delta.sum;
+                    movesLeft = delta.movesLeft;
+                }
+            }
+        }
+
+        public int getValue(int row, int col) {
+            return values[row * cols + col];
+        }
+
+        /**
+         * @param i position in queue, 0 is the operator used next
+         * @return operator or empty string when the queue is shorter
+         */
+        public String getOperator(int i) {
+            return i < numOfOperators ? (char) operators[i] + "" : "";
+        }
+
+        private void write(ByteBuffer buffer, int offset) {
+            buffer.putLong(offset, lastSeq);
+            buffer.putInt(offset + 8, game);
+            buffer.put(offset + 12, (byte) rows);
+            buffer.put(offset + 13, (byte) cols);
+            buffer.put(offset + 14, (byte) selectedRow);
+            buffer.put(offset + 15, (byte) selectedCol);
+            buffer.putShort(offset + 16, (short) targetValue);
+            buffer.putShort(offset + 18, (short) movesLeft);
+            buffer.putShort(offset + 20, (short) sum);
+            buffer.put(offset + 22, (byte) result);
+            buffer.put(offset + 23, (byte) numOfOperators);
+            buffer.put(offset + 24, operators, 0, MAX_OPERATORS);
+            buffer.put(offset + 24 + MAX_OPERATORS, values, 0, MAX_BUTTONS);
+        }
+
+        private void read(ByteBuffer buffer, int offset) {
+            lastSeq = buffer.getLong(offset);
+            game = buffer.getInt(offset + 8);
+            rows = buffer.get(offset + 12);
+            cols = buffer.get(offset + 13);
+            selectedRow = buffer.get(offset + 14);
+            selectedCol = buffer.get(offset + 15);
+            targetValue = buffer.getShort(offset + 16);
+            movesLeft = buffer.getShort(offset + 18);
+            sum = buffer.getShort(offset + 20);
+            result = buffer.get(offset + 22);
+            numOfOperators = buffer.get(offset + 23);
+            buffer.get(offset + 24, operators, 0, MAX_OPERATORS);
+            buffer.get(offset + 24 + MAX_OPERATORS, values, 0, MAX_BUTTONS);
+        }
+    }
+
+    /**
+     * Prints the deltas of a feed file as they come in
+     * Usage: java SpectatorFeed feedFile
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        try (SpectatorFeed feed = open(new File(args[0]))) {
+            Snapshot state = new Snapshot();
+            Reader reader = feed.join(state);
+            System.out.println("Joined after #" + state.lastSeq + ", game " + state.game
+                    + ", sum " + state.sum + ", moves left " + state.movesLeft);
+            Delta delta = new Delta();
+            long missed = 0;
+            while (true) {
+                if (reader.poll(delta)) {
+                    System.out.println(delta);
+                } else if (reader.getMissed() != missed) {
+                    missed = reader.getMissed();
+                    System.out.println("Fell behind, " + missed + " deltas missed");
+                    reader = feed.join(state);
+                } else if (reader.isRestarted()) {
+                    System.out.println("Game was started again");
+                    reader = feed.join(state);
+                    missed = 0;
+                } else {
+                    Thread.sleep(10);
+                }
+            }
+        }
+    }
+}
@@ -1,5 +1,10 @@
+import java.io.File;
+import java.io.IOException;
+
 public class VDN2 {
-    public static void main(String[] args) {
-        new GameGui();
+    public static void main(String[] args) throws IOException {
+        // java -Dspectator.feed=feed.bin VDN2 lets other programs follow the game with: java SpectatorFeed feed.bin
+        String feedFile = System.getProperty("spectator.feed");
+        new GameGui(feedFile == null ? null : SpectatorFeed.create(new File(feedFile), 4096));
     }
-}
\ No newline at end of file
+}